@@ -0,0 +1,71 @@
+#!/bin/bash
+#
+# Runs the JMH benchmarks (src/jmh, -Pjmh profile) on a baseline git ref and on
+# the working tree, then prints time and allocation per operation side by side.
+#
+#   ./jmh-compare.sh <baseline-ref> [benchmark-regex] [extra JMH options]
+#   ./jmh-compare.sh --diff <baseline.json> <current.json>
+#
+# e.g. ./jmh-compare.sh main 'TflLineDecoder|Severity' '-f 2 -i 10'
+# The baseline ref must already contain the benchmarks being compared.
+
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")" && pwd)"
+RESULTS="$ROOT/target/jmh"
+
+diff_results() {
+    python3 - "$1" "$2" <<'EOF'
+import json, sys
+
+def load(path):
+    results = {}
+    for run in json.load(open(path)):
+        params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+        name = run["benchmark"].rsplit(".", 2)
+        key = name[-2] + "." + name[-1] + (f" [{params}]" if params else "")
+        alloc = run.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+        results[key] = (run["primaryMetric"]["score"], run["primaryMetric"]["scoreUnit"], alloc)
+    return results
+
+baseline, current = load(sys.argv[1]), load(sys.argv[2])
+print(f"{'Benchmark':<58} {'baseline':>12} {'current':>12} {'delta':>8}   {'B/op base':>10} {'B/op now':>10}")
+for key in sorted(set(baseline) | set(current)):
+    base, now = baseline.get(key), current.get(key)
+    if base is None or now is None:
+        print(f"{key:<58} {'only in ' + ('current' if base is None else 'baseline'):>34}")
+        continue
+    delta = (now[0] - base[0]) / base[0] * 100 if base[0] else 0.0
+    alloc = lambda a: "-" if a is None else f"{a:.0f}"
+    print(f"{key:<58} {base[0]:>9.1f} {base[1]:<2} {now[0]:>9.1f} {now[1]:<2} {delta:>+7.1f}%"
+          f"   {alloc(base[2]):>10} {alloc(now[2]):>10}")
+EOF
+}
+
+if [ "${1:-}" = "--diff" ]; then
+    diff_results "$2" "$3"
+    exit 0
+fi
+
+BASELINE_REF="${1:?usage: $0 <baseline-ref> [benchmark-regex] [extra JMH options]}"
+INCLUDE="${2:-.*}"
+ARGS="${3:-}"
+WORKTREE="$ROOT/target/jmh-baseline"
+
+mkdir -p "$RESULTS"
+git -C "$ROOT" worktree remove --force "$WORKTREE" 2>/dev/null || true
+git -C "$ROOT" worktree add --detach "$WORKTREE" "$BASELINE_REF"
+# JMH does not create the directory of its result file
+mkdir -p "$WORKTREE/target/jmh"
+trap 'git -C "$ROOT" worktree remove --force "$WORKTREE"' EXIT
+
+echo "Running benchmarks on $BASELINE_REF..."
+(cd "$WORKTREE" && ./mvnw -B -q -Pjmh -DskipTests verify -Djmh.include="$INCLUDE" -Djmh.args="$ARGS" \
+    -Djmh.result=baseline)
+cp "$WORKTREE/target/jmh/baseline.json" "$RESULTS/baseline.json"
+
+echo "Running benchmarks on the working tree..."
+(cd "$ROOT" && ./mvnw -B -q -Pjmh -DskipTests verify -Djmh.include="$INCLUDE" -Djmh.args="$ARGS" \
+    -Djmh.result=current)
+
+diff_results "$RESULTS/baseline.json" "$RESULTS/current.json"
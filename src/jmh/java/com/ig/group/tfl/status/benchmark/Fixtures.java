@@ -0,0 +1,60 @@
+package com.ig.group.tfl.status.benchmark;
+
+import com.ig.group.tfl.status.client.TflLineDecoder;
+import com.ig.group.tfl.status.grpc.LineInfo;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Realistic /Line/Mode/tube/Status payload, including the disruption, route and
+ * service type blobs TfL sends and we do not serve.
+ */
+final class Fixtures {
+
+    static final String ALL_TUBE_STATUS = "/all-tube-status.json";
+
+    private Fixtures() {
+    }
+
+    static byte[] allTubeStatus() {
+        try (InputStream in = Fixtures.class.getResourceAsStream(ALL_TUBE_STATUS)) {
+            if (in == null) {
+                throw new IllegalStateException(ALL_TUBE_STATUS + " is not on the classpath");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Splits a body into buffers the size of network reads, without copying.
+     */
+    static List<DataBuffer> chunks(byte[] body, int chunkSize) {
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            chunks.add(DefaultDataBufferFactory.sharedInstance
+                    .wrap(ByteBuffer.wrap(body, offset, Math.min(chunkSize, body.length - offset)).slice()));
+        }
+        return chunks;
+    }
+
+    static List<LineInfo> allTubeLines() {
+        return new TflLineDecoder()
+                .decode(Flux.fromIterable(chunks(allTubeStatus(), 8192)), ResolvableType.forClass(LineInfo.class),
+                        MediaType.APPLICATION_JSON, Map.of())
+                .collectList()
+                .block();
+    }
+}
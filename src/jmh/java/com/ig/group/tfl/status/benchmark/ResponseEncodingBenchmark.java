@@ -0,0 +1,61 @@
+package com.ig.group.tfl.status.benchmark;
+
+import com.ig.group.tfl.status.grpc.UnplannedDisruptionsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.protobuf.ProtobufEncoder;
+import org.springframework.http.codec.protobuf.ProtobufJsonEncoder;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing an unplanned disruptions response that lists every tube line, as
+ * JSON and as protobuf binary. This is the per-version cost the pre-encoded
+ * REST responses pay once instead of per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    private static final ResolvableType TYPE = ResolvableType.forClass(UnplannedDisruptionsResponse.class);
+    private static final MimeType PROTOBUF = new MimeType("application", "x-protobuf");
+
+    private final ProtobufJsonEncoder jsonEncoder = new ProtobufJsonEncoder();
+    private final ProtobufEncoder protobufEncoder = new ProtobufEncoder();
+    private UnplannedDisruptionsResponse response;
+
+    @Setup
+    public void setUp() {
+        response = UnplannedDisruptionsResponse.newBuilder().addAllAffectedLines(Fixtures.allTubeLines()).build();
+    }
+
+    @Benchmark
+    public DataBuffer protobufJson() {
+        return jsonEncoder.encodeValue(response, DefaultDataBufferFactory.sharedInstance, TYPE,
+                MediaType.APPLICATION_JSON, Map.of());
+    }
+
+    @Benchmark
+    public DataBuffer protobufBinary() {
+        return protobufEncoder.encodeValue(response, DefaultDataBufferFactory.sharedInstance, TYPE,
+                PROTOBUF, Map.of());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ig.group.tfl.status.benchmark;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityClassifier;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import com.ig.group.tfl.status.snapshot.TubeSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Severity classification of every tube line, and building the next snapshot
+ * when one line changes, which is what a poll does on a typical update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SeverityBenchmark {
+
+    private final SeverityClassifier classifier = SeverityTable.defaults();
+    private List<LineInfo> lines;
+    private List<LineInfo> oneLineChanged;
+    private TubeSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        lines = Fixtures.allTubeLines();
+        oneLineChanged = new ArrayList<>(lines);
+        oneLineChanged.set(0, lines.get(0).toBuilder().clearStatuses()
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(9).setStatusSeverityDescription("Minor Delays"))
+                .build());
+        snapshot = TubeSnapshot.EMPTY.next(lines, Instant.EPOCH, classifier);
+    }
+
+    @Benchmark
+    public int classifyAllLines() {
+        int unplanned = 0;
+        for (LineInfo line : lines) {
+            if (classifier.hasUnplannedDisruption(line)) {
+                unplanned++;
+            }
+        }
+        return unplanned;
+    }
+
+    @Benchmark
+    public TubeSnapshot nextSnapshotOneLineChanged() {
+        return snapshot.next(oneLineChanged, Instant.EPOCH, classifier);
+    }
+}
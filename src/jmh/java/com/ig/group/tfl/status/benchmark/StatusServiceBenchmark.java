@@ -0,0 +1,115 @@
+package com.ig.group.tfl.status.benchmark;
+
+import com.ig.group.tfl.status.cache.ReactiveValueCache;
+import com.ig.group.tfl.status.client.AdaptiveConcurrencyLimiter;
+import com.ig.group.tfl.status.client.HedgePolicy;
+import com.ig.group.tfl.status.client.RequestHedger;
+import com.ig.group.tfl.status.client.SingleFlight;
+import com.ig.group.tfl.status.client.TflApiClient;
+import com.ig.group.tfl.status.client.TflLineDecoder;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.LineStatusesResponse;
+import com.ig.group.tfl.status.grpc.UnplannedDisruptionsResponse;
+import com.ig.group.tfl.status.service.LineFreshness;
+import com.ig.group.tfl.status.service.StatusResult;
+import com.ig.group.tfl.status.service.TflStatusService;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The read path once data is held: tube lines served from the snapshot, other
+ * lines from the near cache, and a batch mixing both. Upstream is stubbed and
+ * only reached while the caches are warmed in setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusServiceBenchmark {
+
+    private static final String DLR = "[{\"id\":\"dlr\",\"name\":\"DLR\",\"lineStatuses\":"
+            + "[{\"statusSeverity\":10,\"statusSeverityDescription\":\"Good Service\"}]}]";
+    private static final List<String> BATCH = List.of("central", "dlr", "victoria", "northern");
+
+    private TflStatusService statusService;
+
+    @Setup
+    public void setUp() {
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> codecs.customCodecs().register(new TflLineDecoder()))
+                .build();
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://tfl")
+                .exchangeStrategies(strategies)
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK, strategies)
+                        .header("Content-Type", "application/json")
+                        .body(DLR)
+                        .build()))
+                .build();
+        TubeSnapshotHolder snapshotHolder = new TubeSnapshotHolder(SeverityTable.defaults());
+        snapshotHolder.publish(Fixtures.allTubeLines(), Instant.now());
+        Duration ttl = Duration.ofHours(1);
+        statusService = new TflStatusService(new TflApiClient(webClient, "", "", new SimpleMeterRegistry()),
+                new SingleFlight(new SimpleMeterRegistry()),
+                new RequestHedger(HedgePolicy.disabled(), CircuitBreaker.ofDefaults("tflApi"),
+                        new SimpleMeterRegistry()),
+                new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 0, Duration.ZERO, new SimpleMeterRegistry()),
+                new ReactiveValueCache<>("lineStatus", ttl, 1000),
+                new ReactiveValueCache<>("futureStatus", ttl, 1000),
+                new ReactiveValueCache<>("unplannedDisruptions", ttl, 1000),
+                snapshotHolder,
+                new LineFreshness(snapshotHolder, new SimpleMeterRegistry(), 64),
+                SeverityTable.defaults(),
+                ttl.toSeconds(),
+                ttl,
+                CircuitBreakerRegistry.ofDefaults(),
+                RetryRegistry.ofDefaults());
+        statusService.getLineStatus("dlr").block();
+    }
+
+    @Benchmark
+    public StatusResult<LineStatusResponse> snapshotHit() {
+        return statusService.getLineStatus("central").block();
+    }
+
+    @Benchmark
+    public StatusResult<LineStatusResponse> nearCacheHit() {
+        return statusService.getLineStatus("dlr").block();
+    }
+
+    @Benchmark
+    public StatusResult<LineStatusesResponse> batchHit() {
+        return statusService.getLineStatuses(BATCH).block();
+    }
+
+    @Benchmark
+    public StatusResult<UnplannedDisruptionsResponse> unplannedDisruptions() {
+        return statusService.getUnplannedDisruptions().block();
+    }
+}
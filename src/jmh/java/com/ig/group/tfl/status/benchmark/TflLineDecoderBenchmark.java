@@ -0,0 +1,62 @@
+package com.ig.group.tfl.status.benchmark;
+
+import com.ig.group.tfl.status.client.TflLineDecoder;
+import com.ig.group.tfl.status.grpc.LineInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding an all-tube response into LineInfo. The tree benchmark is the cost of
+ * materializing the whole payload, for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TflLineDecoderBenchmark {
+
+    @Param({"8192"})
+    private int chunkSize;
+
+    private final TflLineDecoder decoder = new TflLineDecoder();
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        body = Fixtures.allTubeStatus();
+    }
+
+    @Benchmark
+    public List<LineInfo> streamingDecoder() {
+        return decoder.decode(Flux.fromIterable(Fixtures.chunks(body, chunkSize)),
+                        ResolvableType.forClass(LineInfo.class), MediaType.APPLICATION_JSON, Map.of())
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public JsonNode jacksonTree() {
+        return mapper.readTree(body);
+    }
+}
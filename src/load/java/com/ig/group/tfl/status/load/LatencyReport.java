@@ -0,0 +1,119 @@
+package com.ig.group.tfl.status.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts per request name and overall, checked
+ * against the SLOs in SLO_DEFINITION.md. Latency is measured from when a
+ * request was scheduled, not when it was sent, so a stalled server or generator
+ * shows up as latency rather than as fewer samples.
+ */
+final class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final Map<String, Series> byName = new ConcurrentHashMap<>();
+    private final Series overall = new Series();
+
+    void record(LoadRequest request, RequestSender.Outcome outcome, long latencyNanos) {
+        byName.computeIfAbsent(request.name(), name -> new Series()).record(outcome, latencyNanos);
+        overall.record(outcome, latencyNanos);
+    }
+
+    void recordUnfinished(long count) {
+        overall.failures.add(count);
+    }
+
+    /**
+     * Prints the report and writes each histogram as an .hgrm percentile file.
+     *
+     * @return true if both SLOs were met
+     */
+    boolean print(PrintStream out, Duration measured, Duration sloP99, double sloAvailability, Path reportDir)
+            throws IOException {
+        out.printf("%n%-58s %9s %7s %6s %8s %8s %8s %8s %8s%n", "Request", "count", "4xx", "fail", "p50 ms",
+                "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        new TreeMap<>(byName).forEach((name, series) -> series.print(out, name));
+        overall.print(out, "TOTAL");
+
+        double throughput = overall.count() / (measured.toMillis() / 1000.0);
+        double p99Millis = millis(overall.histogram.getValueAtPercentile(99));
+        double availability = overall.availability();
+        boolean latencyMet = overall.histogram.getValueAtPercentile(99) < sloP99.toNanos();
+        boolean availabilityMet = availability >= sloAvailability;
+        out.printf("%nThroughput: %.0f req/s over %ds%n", throughput, measured.toSeconds());
+        out.printf("Latency SLO      p99 %.2f ms < %d ms: %s%n", p99Millis, sloP99.toMillis(), verdict(latencyMet));
+        out.printf("Availability SLO %.3f%% >= %.3f%%: %s%n", availability, sloAvailability,
+                verdict(availabilityMet));
+
+        Files.createDirectories(reportDir);
+        writeHgrm(reportDir.resolve("total.hgrm"), overall.histogram);
+        for (Map.Entry<String, Series> entry : byName.entrySet()) {
+            writeHgrm(reportDir.resolve(entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm"),
+                    entry.getValue().histogram);
+        }
+        out.println("Percentile distributions written to " + reportDir.toAbsolutePath());
+        return latencyMet && availabilityMet;
+    }
+
+    private static void writeHgrm(Path path, Histogram histogram) throws IOException {
+        try (PrintStream file = new PrintStream(Files.newOutputStream(path))) {
+            histogram.outputPercentileDistribution(file, 1_000_000.0);
+        }
+    }
+
+    private static String verdict(boolean met) {
+        return met ? "PASS" : "FAIL";
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Series {
+
+        private final Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        void record(RequestSender.Outcome outcome, long latencyNanos) {
+            histogram.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            switch (outcome) {
+                case SUCCESS -> successes.increment();
+                case CLIENT_ERROR -> clientErrors.increment();
+                case FAILURE -> failures.increment();
+            }
+        }
+
+        long count() {
+            return successes.sum() + clientErrors.sum() + failures.sum();
+        }
+
+        /**
+         * The SLI excludes client errors from both sides of the ratio.
+         */
+        double availability() {
+            long valid = successes.sum() + failures.sum();
+            return valid == 0 ? 100.0 : successes.sum() * 100.0 / valid;
+        }
+
+        void print(PrintStream out, String name) {
+            out.printf("%-58s %9d %7d %6d %8.2f %8.2f %8.2f %8.2f %8.2f%n", name, count(), clientErrors.sum(),
+                    failures.sum(), millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ig.group.tfl.status.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, each given as --name=value. Without --rest-url the
+ * service is started in-process against a WireMock stand-in for TfL.
+ */
+record LoadOptions(int rate, Duration warmup, Duration duration, String mix, long seed, int connections,
+        Duration timeout, String restUrl, String grpcTarget, Duration upstreamLatency, double upstreamFailureRate,
+        String appLogLevel, Duration sloP99, double sloAvailability, String reportDir) {
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'");
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadOptions options = new LoadOptions(
+                Integer.parseInt(values.getOrDefault("rate", "1000")),
+                duration(values.getOrDefault("warmup", "10s")),
+                duration(values.getOrDefault("duration", "60s")),
+                values.getOrDefault("mix", "classpath:default-mix.txt"),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Integer.parseInt(values.getOrDefault("connections", "256")),
+                duration(values.getOrDefault("timeout", "10s")),
+                values.get("rest-url"),
+                values.get("grpc-target"),
+                duration(values.getOrDefault("upstream-latency", "20ms")),
+                Double.parseDouble(values.getOrDefault("upstream-failure-rate", "0")),
+                values.getOrDefault("app-log-level", "WARN"),
+                duration(values.getOrDefault("slo-p99", "50ms")),
+                Double.parseDouble(values.getOrDefault("slo-availability", "99.9")),
+                values.getOrDefault("report-dir", "target/load"));
+        if (options.rate() <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if ((options.restUrl() == null) != (options.grpcTarget() == null)) {
+            throw new IllegalArgumentException("--rest-url and --grpc-target must be given together");
+        }
+        return options;
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+
+    boolean inProcess() {
+        return restUrl == null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.ig.group.tfl.status.load;
+
+import com.ig.group.tfl.status.TflStatusServiceApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the REST and gRPC APIs. Requests are drawn from a
+ * weighted mix and started on a fixed schedule at the target rate whether or not
+ * earlier ones have completed, as independent clients would. Results from the
+ * warmup period are discarded. Exits non-zero if the run misses an SLO.
+ *
+ * <p>By default the service is started in this JVM against an in-process WireMock
+ * stand-in for TfL, so the load generator shares the machine with it; pass
+ * --rest-url and --grpc-target to drive a separately deployed instance instead.
+ */
+public final class LoadReplay {
+
+    private LoadReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        RequestMix mix = RequestMix.load(options.mix(), options.seed());
+        System.out.printf("Replaying %d request types at %d req/s for %ds after %ds warmup%n", mix.requests().size(),
+                options.rate(), options.duration().toSeconds(), options.warmup().toSeconds());
+
+        boolean met;
+        if (options.inProcess()) {
+            try (UpstreamStub upstream = new UpstreamStub(options.upstreamLatency(), options.upstreamFailureRate())) {
+                int httpPort = freePort();
+                int grpcPort = freePort();
+                try (ConfigurableApplicationContext app = startService(options, upstream, httpPort, grpcPort)) {
+                    met = run(options, mix, "http://localhost:" + httpPort, "localhost:" + grpcPort);
+                }
+            }
+        } else {
+            met = run(options, mix, options.restUrl(), options.grpcTarget());
+        }
+        System.exit(met ? 0 : 1);
+    }
+
+    private static ConfigurableApplicationContext startService(LoadOptions options, UpstreamStub upstream,
+            int httpPort, int grpcPort) throws IOException {
+        System.out.printf("Starting service against TfL stand-in at %s (latency %dms, failure rate %.3f)%n",
+                upstream.baseUrl(), options.upstreamLatency().toMillis(), options.upstreamFailureRate());
+        // Passed as arguments so they take precedence over application.yml
+        return new SpringApplicationBuilder(TflStatusServiceApplication.class).run(
+                "--server.port=" + httpPort,
+                "--grpc.server.port=" + grpcPort,
+                "--spring.data.redis.port=" + freePort(),
+                "--tfl.api.base-url=" + upstream.baseUrl(),
+                // One generator is one client; its budget must not cap the run
+                "--tfl.rate-limit.limit-for-period=1000000000",
+                "--management.tracing.sampling.probability=0.0",
+                "--logging.level.com.ig.group.tfl.status=" + options.appLogLevel());
+    }
+
+    private static boolean run(LoadOptions options, RequestMix mix, String restUrl, String grpcTarget)
+            throws Exception {
+        LatencyReport report = new LatencyReport();
+        AtomicLong inFlight = new AtomicLong();
+        try (RequestSender sender = new RequestSender(restUrl, grpcTarget, options.connections(),
+                options.timeout())) {
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+            long start = System.nanoTime();
+            long measureFrom = start + options.warmup().toNanos();
+            long end = measureFrom + options.duration().toNanos();
+
+            for (long intended = start; intended < end; intended += intervalNanos) {
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                LoadRequest request = mix.next();
+                boolean measured = intended >= measureFrom;
+                long scheduledAt = intended;
+                inFlight.incrementAndGet();
+                sender.send(request).subscribe(outcome -> {
+                    if (measured) {
+                        report.record(request, outcome, System.nanoTime() - scheduledAt);
+                    }
+                    inFlight.decrementAndGet();
+                });
+            }
+
+            long drainUntil = System.nanoTime() + options.timeout().toNanos();
+            while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+                Thread.sleep(10);
+            }
+            report.recordUnfinished(inFlight.get());
+        }
+        return report.print(System.out, options.duration(), options.sloP99(), options.sloAvailability(),
+                Path.of(options.reportDir()));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
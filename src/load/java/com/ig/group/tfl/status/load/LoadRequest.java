@@ -0,0 +1,14 @@
+package com.ig.group.tfl.status.load;
+
+import java.util.List;
+
+/**
+ * One entry of a request mix: a REST path, or a gRPC method with its arguments.
+ * The name groups latencies in the report.
+ */
+record LoadRequest(String name, Protocol protocol, String target, List<String> arguments) {
+
+    enum Protocol {
+        REST, GRPC
+    }
+}
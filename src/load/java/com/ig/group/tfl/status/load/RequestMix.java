@@ -0,0 +1,93 @@
+package com.ig.group.tfl.status.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Weighted request mix, one request per line:
+ * <pre>
+ * # weight protocol target [arguments]
+ * 40 rest /api/line/central/status
+ * 20 grpc GetLineStatus central
+ * 5  grpc GetFutureLineStatus central 2026-03-20 2026-03-22
+ * </pre>
+ * A recorded mix is the same format with weight 1 per recorded request. Picks
+ * are drawn from a seeded generator, so a run is reproducible.
+ */
+final class RequestMix {
+
+    private final List<LoadRequest> requests;
+    private final int[] cumulativeWeights;
+    private final SplittableRandom random;
+
+    private RequestMix(List<LoadRequest> requests, int[] cumulativeWeights, long seed) {
+        this.requests = requests;
+        this.cumulativeWeights = cumulativeWeights;
+        this.random = new SplittableRandom(seed);
+    }
+
+    static RequestMix load(String location, long seed) throws IOException {
+        String content;
+        if (location.startsWith("classpath:")) {
+            String resource = "/" + location.substring("classpath:".length());
+            try (InputStream in = RequestMix.class.getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException(resource + " is not on the classpath");
+                }
+                content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } else {
+            content = Files.readString(Path.of(location));
+        }
+        return parse(content, seed);
+    }
+
+    static RequestMix parse(String content, long seed) {
+        List<LoadRequest> requests = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (String line : content.split("\n")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("\\s+");
+            if (fields.length < 3) {
+                throw new IllegalArgumentException("Expected 'weight protocol target [arguments]': " + trimmed);
+            }
+            int weight = Integer.parseInt(fields[0]);
+            LoadRequest.Protocol protocol = LoadRequest.Protocol.valueOf(fields[1].toUpperCase());
+            List<String> arguments = List.of(Arrays.copyOfRange(fields, 3, fields.length));
+            String name = protocol == LoadRequest.Protocol.REST
+                    ? "REST " + fields[2]
+                    : "gRPC " + fields[2] + (arguments.isEmpty() ? "" : " " + String.join(" ", arguments));
+            requests.add(new LoadRequest(name, protocol, fields[2], arguments));
+            total += weight;
+            weights.add(total);
+        }
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("Request mix is empty");
+        }
+        return new RequestMix(requests, weights.stream().mapToInt(Integer::intValue).toArray(), seed);
+    }
+
+    /**
+     * Only called from the single pacing thread.
+     */
+    LoadRequest next() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = Arrays.binarySearch(cumulativeWeights, pick + 1);
+        return requests.get(index >= 0 ? index : -index - 1);
+    }
+
+    List<LoadRequest> requests() {
+        return requests;
+    }
+}
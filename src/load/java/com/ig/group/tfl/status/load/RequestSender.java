@@ -0,0 +1,120 @@
+package com.ig.group.tfl.status.load;
+
+import com.ig.group.tfl.status.grpc.DateRange;
+import com.ig.group.tfl.status.grpc.EmptyRequest;
+import com.ig.group.tfl.status.grpc.FutureLineStatusRequest;
+import com.ig.group.tfl.status.grpc.LineStatusRequest;
+import com.ig.group.tfl.status.grpc.LineStatusesRequest;
+import com.ig.group.tfl.status.grpc.TubeStatusServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues mix requests without blocking: REST over a pooled Reactor Netty client
+ * with Accept-Version: v1, gRPC over async stubs on one channel. Outcomes follow
+ * the availability SLI: 4xx and their gRPC equivalents are the client's fault and
+ * excluded; 5xx, other gRPC errors, transport errors and timeouts are failures.
+ */
+final class RequestSender implements AutoCloseable {
+
+    enum Outcome {
+        SUCCESS, CLIENT_ERROR, FAILURE
+    }
+
+    private final ConnectionProvider connections;
+    private final HttpClient http;
+    private final ManagedChannel channel;
+    private final TubeStatusServiceGrpc.TubeStatusServiceStub stub;
+    private final Duration timeout;
+
+    RequestSender(String restUrl, String grpcTarget, int maxConnections, Duration timeout) {
+        this.connections = ConnectionProvider.builder("load-replay")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.http = HttpClient.create(connections)
+                .baseUrl(restUrl)
+                .headers(headers -> headers.add("Accept-Version", "v1"));
+        this.channel = ManagedChannelBuilder.forTarget(grpcTarget).usePlaintext().build();
+        this.stub = TubeStatusServiceGrpc.newStub(channel);
+        this.timeout = timeout;
+    }
+
+    Mono<Outcome> send(LoadRequest request) {
+        Mono<Outcome> call = request.protocol() == LoadRequest.Protocol.REST ? rest(request) : grpc(request);
+        return call.timeout(timeout).onErrorReturn(Outcome.FAILURE);
+    }
+
+    private Mono<Outcome> rest(LoadRequest request) {
+        return http.get()
+                .uri(request.target())
+                .responseSingle((response, body) -> body.asByteArray()
+                        .then(Mono.just(classify(response.status().code()))));
+    }
+
+    private static Outcome classify(int statusCode) {
+        if (statusCode >= 500) {
+            return Outcome.FAILURE;
+        }
+        return statusCode >= 400 ? Outcome.CLIENT_ERROR : Outcome.SUCCESS;
+    }
+
+    private Mono<Outcome> grpc(LoadRequest request) {
+        return Mono.create(sink -> {
+            switch (request.target()) {
+                case "GetLineStatus" -> stub.getLineStatus(
+                        LineStatusRequest.newBuilder().setLineId(request.arguments().get(0)).build(), observer(sink));
+                case "GetLineStatuses" -> stub.getLineStatuses(LineStatusesRequest.newBuilder()
+                        .addAllLineIds(Arrays.asList(request.arguments().get(0).split(",")))
+                        .build(), observer(sink));
+                case "GetFutureLineStatus" -> stub.getFutureLineStatus(FutureLineStatusRequest.newBuilder()
+                        .setLineId(request.arguments().get(0))
+                        .setDateRange(DateRange.newBuilder()
+                                .setStartDate(request.arguments().get(1))
+                                .setEndDate(request.arguments().get(2)))
+                        .build(), observer(sink));
+                case "GetUnplannedDisruptions" -> stub.getUnplannedDisruptions(EmptyRequest.getDefaultInstance(),
+                        observer(sink));
+                default -> sink.error(new IllegalArgumentException("Unsupported gRPC method " + request.target()));
+            }
+        });
+    }
+
+    private static <T> StreamObserver<T> observer(MonoSink<Outcome> sink) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                sink.success(switch (Status.fromThrowable(t).getCode()) {
+                    case INVALID_ARGUMENT, NOT_FOUND, RESOURCE_EXHAUSTED, FAILED_PRECONDITION, OUT_OF_RANGE ->
+                            Outcome.CLIENT_ERROR;
+                    default -> Outcome.FAILURE;
+                });
+            }
+
+            @Override
+            public void onCompleted() {
+                sink.success(Outcome.SUCCESS);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        connections.dispose();
+    }
+}
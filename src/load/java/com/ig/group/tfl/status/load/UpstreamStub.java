@@ -0,0 +1,110 @@
+package com.ig.group.tfl.status.load;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * In-process stand-in for the TfL API, serving the all-tube fixture plus a few
+ * non-tube lines. Every response is delayed by a log-normal latency around the
+ * configured median, and a configured fraction fails with a 500.
+ */
+final class UpstreamStub implements AutoCloseable {
+
+    private static final String NON_TUBE_LINES = """
+            [{"id":"dlr","name":"DLR","modeName":"dlr","lineStatuses":[{"statusSeverity":10,"statusSeverityDescription":"Good Service"}]},
+             {"id":"elizabeth","name":"Elizabeth line","modeName":"elizabeth-line","lineStatuses":[{"statusSeverity":9,"statusSeverityDescription":"Minor Delays"}]}]
+            """;
+
+    private final WireMockServer server;
+
+    UpstreamStub(Duration latency, double failureRate) throws IOException {
+        server = new WireMockServer(options()
+                .dynamicPort()
+                .containerThreads(200)
+                .disableRequestJournal()
+                .notifier(new Slf4jNotifier(false))
+                .extensions(new FailureInjector(failureRate)));
+        server.start();
+
+        JsonMapper mapper = JsonMapper.builder().build();
+        String allTube;
+        try (InputStream in = UpstreamStub.class.getResourceAsStream("/all-tube-status.json")) {
+            if (in == null) {
+                throw new IOException("/all-tube-status.json is not on the classpath");
+            }
+            allTube = new String(in.readAllBytes());
+        }
+        server.stubFor(get(urlPathEqualTo("/Line/Mode/tube/Status")).willReturn(json(allTube, latency)));
+        // Batches get every tube line back; the service picks out the ones it asked for
+        server.stubFor(get(urlPathMatching("/Line/[^/]+,[^/]+/Status")).willReturn(json(allTube, latency)));
+        for (String body : new String[] {allTube, NON_TUBE_LINES}) {
+            for (JsonNode line : mapper.readTree(body)) {
+                String id = line.get("id").asString();
+                String single = "[" + mapper.writeValueAsString(line) + "]";
+                server.stubFor(get(urlPathEqualTo("/Line/" + id + "/Status")).willReturn(json(single, latency)));
+                server.stubFor(get(urlPathMatching("/Line/" + id + "/Status/[^/]+/to/[^/]+"))
+                        .willReturn(json(single, latency)));
+            }
+        }
+    }
+
+    private static ResponseDefinitionBuilder json(String body, Duration latency) {
+        ResponseDefinitionBuilder response = aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(body);
+        return latency.isZero() ? response : response.withLogNormalRandomDelay(latency.toMillis(), 0.25);
+    }
+
+    String baseUrl() {
+        return server.baseUrl();
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+
+    private static final class FailureInjector implements ResponseDefinitionTransformerV2 {
+
+        private final double failureRate;
+
+        FailureInjector(double failureRate) {
+            this.failureRate = failureRate;
+        }
+
+        @Override
+        public ResponseDefinition transform(ServeEvent serveEvent) {
+            ResponseDefinition response = serveEvent.getResponseDefinition();
+            if (failureRate <= 0 || ThreadLocalRandom.current().nextDouble() >= failureRate) {
+                return response;
+            }
+            return ResponseDefinitionBuilder.like(response)
+                    .withStatus(500)
+                    .withBody("{\"message\":\"Injected failure\"}")
+                    .build();
+        }
+
+        @Override
+        public String getName() {
+            return "failure-injector";
+        }
+    }
+}
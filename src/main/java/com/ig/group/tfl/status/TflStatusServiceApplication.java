@@ -1,7 +1,5 @@
 package com.ig.group.tfl.status;
 
-import org.springframework.cache.annotation.EnableCaching;
-
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -10,7 +8,6 @@ import org.springframework.context.annotation.Bean;
 import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
 
 @SpringBootApplication
-@org.springframework.cache.annotation.EnableCaching
 public class TflStatusServiceApplication {
 
 	public static void main(String[] args) {
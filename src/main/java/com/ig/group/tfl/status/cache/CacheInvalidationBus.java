@@ -0,0 +1,74 @@
+package com.ig.group.tfl.status.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the in-process (L1) caches of all replicas coherent.
+ * Whenever a replica writes a fresh value to the shared L2 tier it publishes
+ * the key; every other replica drops its L1 copy so the next read picks up the
+ * newer value from Redis instead of serving its own older copy until expiry.
+ */
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final String SEPARATOR = "|";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Consumer<String>> evictors = new ConcurrentHashMap<>();
+    private Disposable subscription;
+
+    public CacheInvalidationBus(ReactiveStringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void register(String cacheName, Consumer<String> evictor) {
+        evictors.put(cacheName, evictor);
+    }
+
+    public Mono<Void> publish(String cacheName, String key) {
+        return redisTemplate.convertAndSend(channel, instanceId + SEPARATOR + cacheName + SEPARATOR + key).then();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        subscription = redisTemplate.listenToChannel(channel)
+                .doOnNext(message -> onMessage(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Cache invalidation subscription lost, resubscribing: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    void onMessage(String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 3);
+        if (parts.length != 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        Consumer<String> evictor = evictors.get(parts[1]);
+        if (evictor != null) {
+            evictor.accept(parts[2]);
+        }
+    }
+}
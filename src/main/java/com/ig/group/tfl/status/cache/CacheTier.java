@@ -0,0 +1,22 @@
+package com.ig.group.tfl.status.cache;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Shared (L2) cache tier sitting behind the in-process {@link ReactiveValueCache}.
+ * Implementations must never propagate their own failures: an unavailable tier
+ * behaves like a miss so that reads fall through to TfL.
+ */
+public interface CacheTier<V> {
+
+    Mono<Timestamped<V>> get(String key);
+
+    Mono<Void> put(String key, Timestamped<V> entry);
+
+    /**
+     * Takes a short lock on refreshing the key from TfL, so that one replica
+     * refreshes a stale entry while the others keep serving it. Completes with
+     * true if this replica may refresh, including when the tier is unavailable.
+     */
+    Mono<Boolean> tryLockRefresh(String key);
+}
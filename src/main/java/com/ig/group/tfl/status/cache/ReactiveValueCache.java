@@ -0,0 +1,225 @@
+package com.ig.group.tfl.status.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * In-process cache of resolved reactive values.
+ * Unlike Spring's @Cacheable on a cold Mono, the value stored here is the
+ * emitted element, so a hit never re-subscribes to the upstream publisher.
+ * Failed or empty loads are discarded by Caffeine and never cached.
+ * <p>
+ * Entries are fresh for the TTL and are then served stale-while-revalidate:
+ * the stale value is returned immediately and a single background refresh
+ * replaces it on success. If TfL stays unavailable the last good value keeps
+ * being served until it reaches the max staleness, after which it is evicted.
+ * <p>
+ * When a shared {@link CacheTier} is configured the cache acts as a near-cache:
+ * L1 misses are looked up in L2 before TfL is called, and values fetched from
+ * TfL are written back to L2 for the other replicas. Entries read from L2 keep
+ * the fetch time of the replica that wrote them, so replicas go stale together;
+ * a stale entry is refreshed from L2 if another replica already has, and only
+ * the replica holding the tier's refresh lock for the key calls TfL.
+ * <p>
+ * As a {@link MeterBinder} it exports the standard cache.* meters for L1 (gets by
+ * hit or miss, evictions, size), tagged by cache name, plus
+ * tfl.cache.shared.gets{result} for L2 lookups and tfl.cache.stale.served.
+ */
+@Slf4j
+public class ReactiveValueCache<K, V> implements MeterBinder {
+
+    private final String name;
+    private final Duration ttl;
+    private final Duration maxStaleness;
+    private final Clock clock;
+    private final CacheTier<V> sharedTier;
+    private final AsyncCache<K, Timestamped<V>> cache;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedMisses = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+
+    public ReactiveValueCache(String name, Duration ttl, long maximumSize) {
+        this(name, ttl, ttl, maximumSize, null, Clock.systemUTC());
+    }
+
+    public ReactiveValueCache(String name, Duration ttl, Duration maxStaleness, long maximumSize,
+            CacheTier<V> sharedTier, Clock clock) {
+        this.name = name;
+        this.ttl = ttl;
+        this.maxStaleness = maxStaleness.compareTo(ttl) < 0 ? ttl : maxStaleness;
+        this.clock = clock;
+        this.sharedTier = sharedTier;
+        this.cache = Caffeine.newBuilder()
+                .expireAfter(new RemainingStalenessExpiry())
+                .maximumSize(maximumSize)
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+        FunctionCounter.builder("tfl.cache.shared.gets", sharedHits, LongAdder::sum)
+                .tags("cache", name, "result", "hit")
+                .description("L1 misses answered by a usable entry in the shared tier")
+                .register(registry);
+        FunctionCounter.builder("tfl.cache.shared.gets", sharedMisses, LongAdder::sum)
+                .tags("cache", name, "result", "miss")
+                .description("L1 misses the shared tier could not answer, so TfL was called")
+                .register(registry);
+        FunctionCounter.builder("tfl.cache.stale.served", staleServed, LongAdder::sum)
+                .tag("cache", name)
+                .description("Reads answered with an entry past its TTL")
+                .register(registry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the cached entry for the key, or subscribes to the loader once and
+     * caches what it emits. Concurrent misses for the same key share one load, and
+     * cancelling one subscriber does not cancel the load for the others.
+     * A stale entry is returned as is and triggers a background refresh.
+     */
+    public Mono<Timestamped<V>> get(K key, Function<K, Mono<V>> loader) {
+        return Mono.defer(() -> Mono.fromFuture(
+                cache.get(key, (k, executor) -> load(k, loader).toFuture()), true))
+                .doOnNext(entry -> {
+                    if (isStale(entry)) {
+                        staleServed.increment();
+                        refreshInBackground(key, loader);
+                    }
+                });
+    }
+
+    /**
+     * Whether this replica's L1 holds a fresh entry for the key, or is loading one.
+     * Lets callers plan one upstream request for several missing or stale keys.
+     */
+    public boolean isFresh(K key) {
+        CompletableFuture<Timestamped<V>> entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return false;
+        }
+        return !entry.isDone() || (!entry.isCompletedExceptionally() && !isStale(entry.join()));
+    }
+
+    public boolean isStale(Timestamped<V> entry) {
+        return entry.age(clock.instant()).compareTo(ttl) > 0;
+    }
+
+    public void invalidate(K key) {
+        cache.synchronous().invalidate(key);
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private void refreshInBackground(K key, Function<K, Mono<V>> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        refresh(key, loader)
+                .doFinally(signal -> refreshing.remove(key))
+                .subscribe(
+                        entry -> cache.put(key, CompletableFuture.completedFuture(entry)),
+                        e -> log.debug("Background refresh of {}:{} failed, serving stale value: {}", name, key,
+                                e.getMessage()));
+    }
+
+    /**
+     * Stale L1 entry: take L2's entry if another replica has refreshed it since,
+     * otherwise call TfL under the refresh lock. Without the lock the stale entry
+     * is kept; the lock holder's write to L2 invalidates it.
+     */
+    private Mono<Timestamped<V>> refresh(K key, Function<K, Mono<V>> loader) {
+        if (sharedTier == null) {
+            return fetch(key, loader);
+        }
+        return sharedTier.get(key.toString())
+                .filter(entry -> !isStale(entry))
+                .switchIfEmpty(Mono.defer(() -> fetchLocked(key, loader)));
+    }
+
+    /**
+     * L1 miss: prefer a fresh L2 entry, otherwise go to TfL. A stale L2 entry is
+     * served as is unless this replica gets the refresh lock, and is also used if
+     * TfL cannot be reached, which keeps newly started replicas useful while the
+     * upstream is down.
+     */
+    private Mono<Timestamped<V>> load(K key, Function<K, Mono<V>> loader) {
+        if (sharedTier == null) {
+            return fetch(key, loader);
+        }
+        return sharedTier.get(key.toString())
+                .filter(entry -> remainingStaleness(entry) > 0)
+                .doOnNext(entry -> sharedHits.increment())
+                .flatMap(entry -> isStale(entry)
+                        ? fetchLocked(key, loader).onErrorResume(e -> Mono.empty()).defaultIfEmpty(entry)
+                        : Mono.just(entry))
+                .switchIfEmpty(Mono.defer(() -> {
+                    sharedMisses.increment();
+                    return fetch(key, loader);
+                }));
+    }
+
+    /**
+     * Calls TfL only if this replica gets the shared tier's refresh lock for the
+     * key; completes empty if another replica holds it.
+     */
+    private Mono<Timestamped<V>> fetchLocked(K key, Function<K, Mono<V>> loader) {
+        return sharedTier.tryLockRefresh(key.toString())
+                .filter(Boolean::booleanValue)
+                .flatMap(locked -> fetch(key, loader));
+    }
+
+    private Mono<Timestamped<V>> fetch(K key, Function<K, Mono<V>> loader) {
+        Mono<Timestamped<V>> upstream = loader.apply(key)
+                .map(value -> new Timestamped<>(value, clock.instant()));
+        if (sharedTier == null) {
+            return upstream;
+        }
+        return upstream.doOnNext(entry -> sharedTier.put(key.toString(), entry).subscribe());
+    }
+
+    private long remainingStaleness(Timestamped<V> entry) {
+        return Math.max(0, maxStaleness.minus(entry.age(clock.instant())).toNanos());
+    }
+
+    private class RemainingStalenessExpiry implements Expiry<K, Timestamped<V>> {
+
+        @Override
+        public long expireAfterCreate(K key, Timestamped<V> value, long currentTime) {
+            return remainingStaleness(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(K key, Timestamped<V> value, long currentTime, long currentDuration) {
+            return remainingStaleness(value);
+        }
+
+        @Override
+        public long expireAfterRead(K key, Timestamped<V> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ig.group.tfl.status.cache;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Redis backed L2 tier. Values are stored as a protobuf {@link CacheEntry}
+ * wrapping the binary encoding of the generated response message, so every
+ * replica can decode them without Java serialization or JSON. Refresh locks
+ * are separate keys set with SET NX PX, released only by expiring.
+ */
+@Slf4j
+public class RedisCacheTier<V extends Message> implements CacheTier<V> {
+
+    private final String cacheName;
+    private final String keyPrefix;
+    private final String lockPrefix;
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final Parser<V> parser;
+    private final Duration ttl;
+    private final Duration timeout;
+    private final Duration refreshLock;
+    private final CacheInvalidationBus invalidationBus;
+
+    public RedisCacheTier(String cacheName, String keyPrefix, ReactiveRedisTemplate<String, byte[]> redisTemplate,
+            Parser<V> parser, Duration ttl, Duration timeout, Duration refreshLock,
+            CacheInvalidationBus invalidationBus) {
+        this.cacheName = cacheName;
+        this.keyPrefix = keyPrefix + ":" + cacheName + ":";
+        this.lockPrefix = keyPrefix + ":" + cacheName + "-refresh-lock:";
+        this.redisTemplate = redisTemplate;
+        this.parser = parser;
+        this.ttl = ttl;
+        this.timeout = timeout;
+        this.refreshLock = refreshLock;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @Override
+    public Mono<Timestamped<V>> get(String key) {
+        return redisTemplate.opsForValue().get(keyPrefix + key)
+                .timeout(timeout)
+                .flatMap(this::decode)
+                .onErrorResume(e -> {
+                    log.debug("L2 cache read failed for {}:{}: {}", cacheName, key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<Void> put(String key, Timestamped<V> entry) {
+        byte[] bytes = CacheEntry.newBuilder()
+                .setFetchedAtEpochMillis(entry.fetchedAt().toEpochMilli())
+                .setPayload(entry.value().toByteString())
+                .build()
+                .toByteArray();
+
+        return redisTemplate.opsForValue().set(keyPrefix + key, bytes, ttl)
+                .timeout(timeout)
+                .then(invalidationBus.publish(cacheName, key))
+                .onErrorResume(e -> {
+                    log.debug("L2 cache write failed for {}:{}: {}", cacheName, key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<Boolean> tryLockRefresh(String key) {
+        return redisTemplate.opsForValue().setIfAbsent(lockPrefix + key, new byte[0], refreshLock)
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.debug("L2 refresh lock failed for {}:{}, refreshing anyway: {}", cacheName, key,
+                            e.getMessage());
+                    return Mono.just(true);
+                });
+    }
+
+    private Mono<Timestamped<V>> decode(byte[] bytes) {
+        try {
+            CacheEntry entry = CacheEntry.parseFrom(bytes);
+            V value = parser.parseFrom(entry.getPayload());
+            return Mono.just(new Timestamped<>(value, Instant.ofEpochMilli(entry.getFetchedAtEpochMillis())));
+        } catch (InvalidProtocolBufferException e) {
+            log.warn("Discarding undecodable L2 cache entry in {}: {}", cacheName, e.getMessage());
+            return Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ig.group.tfl.status.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A cached value together with the instant it was fetched from TfL.
+ */
+public record Timestamped<V>(V value, Instant fetchedAt) {
+
+    public Duration age(Instant now) {
+        return Duration.between(fetchedAt, now);
+    }
+}
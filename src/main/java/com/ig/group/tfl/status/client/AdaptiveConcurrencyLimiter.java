@@ -0,0 +1,256 @@
+package com.ig.group.tfl.status.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.timeout.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of TfL calls in flight at a limit that adapts to TfL's
+ * round-trip time, following TCP Vegas: the lowest RTT seen approximates TfL
+ * with no queueing, and the ratio of that to the current RTT estimates how many
+ * of our calls are queued at TfL. Few queued calls grow the limit; many, or a
+ * timeout or 429/503, shrink it. The no-load RTT is re-probed periodically so
+ * the limiter follows TfL getting permanently slower or faster.
+ * <p>
+ * Calls over the limit wait briefly in a bounded queue and are otherwise shed
+ * with {@link UpstreamOverloadedException}, before any connection is used.
+ * Exported as tfl.upstream.concurrency.limit, .in.flight and .queued gauges and a
+ * tfl.upstream.concurrency.rejected counter.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final String METRIC_NAME = "tfl.upstream.concurrency";
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private final Counter rejected;
+    private double limit;
+    private int inFlight;
+    private long noLoadRttNanos;
+    private long samplesSinceProbe;
+
+    public AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+            Duration queueTimeout, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+        this.limit = initialLimit;
+        this.rejected = Counter.builder(METRIC_NAME + ".rejected")
+                .description("TfL calls shed at the concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("TfL calls allowed in flight at once")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".in.flight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("TfL calls in flight")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_NAME + ".queued", this, AdaptiveConcurrencyLimiter::queued)
+                .description("TfL calls waiting for the concurrency limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call once a slot is free, holding the slot until the call terminates.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+        return Mono.usingWhen(acquire(),
+                start -> Mono.defer(call),
+                start -> Mono.fromRunnable(() -> release(start, false)),
+                (start, error) -> Mono.fromRunnable(() -> release(start, isDrop(error))),
+                start -> Mono.fromRunnable(() -> release(-1, false)));
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+
+    private Mono<Long> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            boolean admitted = false;
+            synchronized (this) {
+                if (inFlight < limit && waiters.isEmpty()) {
+                    inFlight++;
+                    admitted = waiter.claim();
+                } else if (waiters.size() < maxQueue) {
+                    waiters.addLast(waiter);
+                    waiter.timeout = Mono.delay(queueTimeout).subscribe(tick -> waiter.abandon(
+                            "TfL calls are at the concurrency limit; queued longer than " + queueTimeout));
+                }
+            }
+            if (admitted) {
+                sink.success(System.nanoTime());
+            } else if (waiter.timeout != null) {
+                sink.onCancel(() -> {
+                    if (!waiter.abandon(null)) {
+                        // Admitted as it cancelled, so the slot will never reach a caller
+                        release(-1, false);
+                    }
+                });
+            } else {
+                waiter.abandon("TfL calls are at the concurrency limit and the queue is full");
+            }
+        });
+    }
+
+    /**
+     * @param startNanos when the call was sent, or -1 for a cancelled call whose RTT is unknown
+     */
+    private void release(long startNanos, boolean dropped) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            if (startNanos >= 0) {
+                onSample(System.nanoTime() - startNanos, inFlight + 1, dropped);
+            }
+            while (inFlight < limit && !waiters.isEmpty()) {
+                Waiter waiter = waiters.pollFirst();
+                if (waiter.claim()) {
+                    inFlight++;
+                    admitted.add(waiter);
+                }
+            }
+        }
+        admitted.forEach(Waiter::admit);
+    }
+
+    /**
+     * One completed call: its RTT, the calls in flight when it completed
+     * (itself included), and whether it failed in a way that signals overload.
+     */
+    synchronized void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (++samplesSinceProbe >= PROBE_MULTIPLIER * (long) limit) {
+            // Forget the old minimum so it is re-learnt at the current load
+            samplesSinceProbe = 0;
+            noLoadRttNanos = rttNanos;
+            return;
+        }
+        if (noLoadRttNanos == 0 || rttNanos < noLoadRttNanos) {
+            noLoadRttNanos = rttNanos;
+            return;
+        }
+        double log = Math.max(1, Math.log10(limit));
+        double next;
+        if (dropped) {
+            next = limit - log;
+        } else if (inFlightAtCompletion * 2 < limit) {
+            // Not using the limit we have, so there is nothing to learn about raising it
+            return;
+        } else {
+            double queued = Math.ceil(limit * (1 - (double) noLoadRttNanos / rttNanos));
+            if (queued <= log) {
+                next = limit + 6 * log;
+            } else if (queued < 3 * log) {
+                next = limit + log;
+            } else if (queued > 6 * log) {
+                next = limit - log;
+            } else {
+                return;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * Timeouts and TfL telling us to back off mean we are sending too much; other
+     * failures (a bad line id, a malformed body) say nothing about load.
+     */
+    static boolean isDrop(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof java.util.concurrent.TimeoutException) {
+                return true;
+            }
+            if (cause instanceof WebClientResponseException response
+                    && (response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                            || response.getStatusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A caller waiting for a slot. Exactly one of admission, timeout or
+     * cancellation claims it.
+     */
+    private final class Waiter {
+
+        private final MonoSink<Long> sink;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Disposable timeout;
+
+        Waiter(MonoSink<Long> sink) {
+            this.sink = sink;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        void admit() {
+            if (timeout != null) {
+                timeout.dispose();
+            }
+            sink.success(System.nanoTime());
+        }
+
+        /**
+         * @param reason why the caller is shed, or null if it cancelled
+         * @return false if the caller had already been admitted
+         */
+        boolean abandon(String reason) {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            synchronized (AdaptiveConcurrencyLimiter.this) {
+                waiters.remove(this);
+            }
+            if (timeout != null) {
+                timeout.dispose();
+            }
+            if (reason != null) {
+                rejected.increment();
+                sink.error(new UpstreamOverloadedException(reason));
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ig.group.tfl.status.client;
+
+import java.time.Duration;
+
+/**
+ * When to send a second, hedged attempt of an upstream call: once the first has
+ * been outstanding for the observed {@code percentile} latency, clamped to
+ * between {@code minDelay} and {@code maxDelay}, and at most for
+ * {@code budgetPercent} of calls. Until enough latencies have been observed the
+ * delay is {@code maxDelay}.
+ */
+public record HedgePolicy(boolean enabled, double percentile, Duration minDelay, Duration maxDelay,
+        double budgetPercent) {
+
+    public HedgePolicy {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 and 1, got " + percentile);
+        }
+        if (minDelay.isNegative() || maxDelay.compareTo(minDelay) < 0) {
+            throw new IllegalArgumentException("Hedge delays must satisfy 0 <= min-delay <= max-delay");
+        }
+        if (budgetPercent < 0 || budgetPercent > 100) {
+            throw new IllegalArgumentException("Hedge budget must be a percentage, got " + budgetPercent);
+        }
+    }
+
+    public static HedgePolicy disabled() {
+        return new HedgePolicy(false, 0.95, Duration.ZERO, Duration.ZERO, 0);
+    }
+}
@@ -0,0 +1,257 @@
+package com.ig.group.tfl.status.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow upstream calls: if the first attempt has not answered after the
+ * policy's delay, a second identical attempt is sent and whichever answers first
+ * wins, the other being cancelled. An attempt that fails while the other is still
+ * running does not fail the call. Hedges are paid for from a budget earned by
+ * every call, so they never exceed the policy's percentage of TfL traffic, and
+ * are not sent unless the circuit breaker is closed, as a struggling TfL should
+ * see less traffic rather than more.
+ * <p>
+ * Exported as tfl.upstream.hedge{operation,outcome} with outcomes sent, won (the
+ * hedge answered first), lost, skipped_budget and skipped_breaker, next to
+ * tfl.upstream.hedge.calls{operation} and the current delay as
+ * tfl.upstream.hedge.delay{operation}.
+ */
+public class RequestHedger {
+
+    private static final String METRIC_NAME = "tfl.upstream.hedge";
+    private static final long CREDIT_PER_HEDGE = 1_000_000;
+    private static final int MAX_BANKED_HEDGES = 10;
+
+    private final HedgePolicy policy;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final long creditPerCall;
+    private final AtomicLong credit = new AtomicLong();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    public RequestHedger(HedgePolicy policy, CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        this.policy = policy;
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+        this.creditPerCall = Math.round(CREDIT_PER_HEDGE * policy.budgetPercent() / 100);
+    }
+
+    /**
+     * @param attempt issues one upstream attempt each time it is called
+     */
+    public <T> Mono<T> execute(String operation, Supplier<Mono<T>> attempt) {
+        if (!policy.enabled()) {
+            return Mono.defer(attempt);
+        }
+        return Mono.create(sink -> new HedgedCall<>(operation(operation), attempt, sink).start());
+    }
+
+    Duration delay(String operation) {
+        return Duration.ofNanos(operation(operation).delayNanos());
+    }
+
+    private Operation operation(String name) {
+        return operations.computeIfAbsent(name, Operation::new);
+    }
+
+    private void earnCredit() {
+        credit.getAndUpdate(current -> Math.min(current + creditPerCall, MAX_BANKED_HEDGES * CREDIT_PER_HEDGE));
+    }
+
+    private boolean spendCredit() {
+        long current;
+        do {
+            current = credit.get();
+            if (current < CREDIT_PER_HEDGE) {
+                return false;
+            }
+        } while (!credit.compareAndSet(current, current - CREDIT_PER_HEDGE));
+        return true;
+    }
+
+    /**
+     * One call: the primary attempt, a timer for the hedge, and the hedge once sent.
+     * The first attempt to answer completes the sink; an error completes it only
+     * once no other attempt is left running.
+     */
+    private final class HedgedCall<T> {
+
+        private final Operation operation;
+        private final Supplier<Mono<T>> attempt;
+        private final MonoSink<T> sink;
+        private final Disposable.Composite subscriptions = Disposables.composite();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicInteger running = new AtomicInteger();
+        private final long startNanos = System.nanoTime();
+        private volatile boolean hedged;
+
+        HedgedCall(Operation operation, Supplier<Mono<T>> attempt, MonoSink<T> sink) {
+            this.operation = operation;
+            this.attempt = attempt;
+            this.sink = sink;
+        }
+
+        void start() {
+            sink.onDispose(subscriptions);
+            operation.calls.increment();
+            earnCredit();
+            send(false);
+            subscriptions.add(Mono.delay(Duration.ofNanos(operation.delayNanos())).subscribe(tick -> hedge()));
+        }
+
+        private void hedge() {
+            if (finished.get()) {
+                return;
+            }
+            if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+                operation.skippedBreaker.increment();
+            } else if (!spendCredit()) {
+                operation.skippedBudget.increment();
+            } else {
+                hedged = true;
+                operation.sent.increment();
+                send(true);
+            }
+        }
+
+        private void send(boolean isHedge) {
+            running.incrementAndGet();
+            AtomicBoolean answered = new AtomicBoolean();
+            subscriptions.add(Mono.defer(attempt).subscribe(
+                    value -> {
+                        answered.set(true);
+                        succeed(isHedge, value);
+                    },
+                    this::fail,
+                    () -> {
+                        if (!answered.get()) {
+                            succeed(isHedge, null);
+                        }
+                    }));
+        }
+
+        private void succeed(boolean isHedge, T value) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            operation.latency.record(System.nanoTime() - startNanos);
+            if (hedged) {
+                (isHedge ? operation.won : operation.lost).increment();
+            }
+            if (value != null) {
+                sink.success(value);
+            } else {
+                sink.success();
+            }
+        }
+
+        /**
+         * A failure before the hedge delay fails the call at once, leaving retries to
+         * the retry policy; the pending hedge is cancelled with the call.
+         */
+        private void fail(Throwable error) {
+            if (running.decrementAndGet() == 0 && finished.compareAndSet(false, true)) {
+                sink.error(error);
+            }
+        }
+    }
+
+    /**
+     * Per-operation meters and latency window.
+     */
+    private final class Operation {
+
+        private final LatencyWindow latency = new LatencyWindow();
+        private final Counter calls;
+        private final Counter sent;
+        private final Counter won;
+        private final Counter lost;
+        private final Counter skippedBudget;
+        private final Counter skippedBreaker;
+
+        Operation(String name) {
+            calls = Counter.builder(METRIC_NAME + ".calls").tag("operation", name)
+                    .description("Upstream calls eligible for hedging").register(meterRegistry);
+            sent = counter(name, "sent", "Hedged attempts sent");
+            won = counter(name, "won", "Calls answered first by the hedged attempt");
+            lost = counter(name, "lost", "Hedged calls answered first by the original attempt");
+            skippedBudget = counter(name, "skipped_budget", "Hedges not sent as the budget was spent");
+            skippedBreaker = counter(name, "skipped_breaker", "Hedges not sent as the circuit breaker was not closed");
+            Gauge.builder(METRIC_NAME + ".delay", this, op -> op.delayNanos() / 1e9)
+                    .tag("operation", name)
+                    .description("Time an upstream attempt may take before it is hedged")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+
+        private Counter counter(String name, String outcome, String description) {
+            return Counter.builder(METRIC_NAME).tag("operation", name).tag("outcome", outcome)
+                    .description(description).register(meterRegistry);
+        }
+
+        long delayNanos() {
+            long observed = latency.percentileNanos(policy.percentile());
+            if (observed < 0) {
+                return policy.maxDelay().toNanos();
+            }
+            return Math.max(policy.minDelay().toNanos(), Math.min(observed, policy.maxDelay().toNanos()));
+        }
+    }
+
+    /**
+     * The most recent call latencies. The percentile is recomputed every few
+     * samples rather than on every call, as it needs a sort of the window.
+     */
+    static final class LatencyWindow {
+
+        private static final int SIZE = 256;
+        private static final int MIN_SAMPLES = 20;
+        private static final int RECOMPUTE_EVERY = 16;
+
+        private final long[] samples = new long[SIZE];
+        private int next;
+        private int count;
+        private int sinceRecompute;
+        private double sortedFor = Double.NaN;
+        private volatile long[] sorted = new long[0];
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % SIZE;
+            count = Math.min(count + 1, SIZE);
+            if (++sinceRecompute >= RECOMPUTE_EVERY || count == MIN_SAMPLES) {
+                sinceRecompute = 0;
+                long[] copy = Arrays.copyOf(samples, count);
+                Arrays.sort(copy);
+                sorted = copy;
+            }
+        }
+
+        /**
+         * @return the latency at the given percentile, or -1 until enough calls have been seen
+         */
+        long percentileNanos(double percentile) {
+            long[] snapshot = sorted;
+            if (snapshot.length < MIN_SAMPLES) {
+                return -1;
+            }
+            return snapshot[Math.min(snapshot.length - 1, (int) Math.ceil(percentile * snapshot.length) - 1)];
+        }
+    }
+}
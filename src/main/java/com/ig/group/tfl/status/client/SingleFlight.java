@@ -0,0 +1,73 @@
+package com.ig.group.tfl.status.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical upstream requests into a single call to TfL.
+ * The first caller for a key issues the request; callers arriving while it is in
+ * flight subscribe to the same result. The flight is forgotten as soon as it
+ * completes, fails or every subscriber has cancelled, so nothing is cached here.
+ * <p>
+ * Issued vs coalesced counts are exported as tfl.upstream.singleflight{operation,outcome}.
+ */
+@Component
+public class SingleFlight {
+
+    private static final String METRIC_NAME = "tfl.upstream.singleflight";
+
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String operation, String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            String flightKey = operation + ":" + key;
+            AtomicReference<Mono<T>> issued = new AtomicReference<>();
+            Mono<T> flight = (Mono<T>) inFlight.computeIfAbsent(flightKey, k -> {
+                Mono<T> created = newFlight(k, call);
+                issued.set(created);
+                return created;
+            });
+            counters(operation)[issued.get() != null ? 0 : 1].increment();
+            return flight;
+        });
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private <T> Mono<T> newFlight(String flightKey, Supplier<Mono<T>> call) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> flight = Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(flightKey, self.get()))
+                .flux()
+                .publish()
+                .refCount()
+                .singleOrEmpty();
+        self.set(flight);
+        return flight;
+    }
+
+    private Counter[] counters(String operation) {
+        return counters.computeIfAbsent(operation, op -> new Counter[] {
+                Counter.builder(METRIC_NAME).tag("operation", op).tag("outcome", "issued")
+                        .description("Upstream TfL requests actually issued").register(meterRegistry),
+                Counter.builder(METRIC_NAME).tag("operation", op).tag("outcome", "coalesced")
+                        .description("Requests that joined an in-flight upstream TfL request").register(meterRegistry)
+        });
+    }
+}
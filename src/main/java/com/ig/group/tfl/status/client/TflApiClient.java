@@ -1,30 +1,50 @@
 package com.ig.group.tfl.status.client;
 
-import com.ig.group.tfl.status.dto.TflLineDto;
+import com.ig.group.tfl.status.grpc.LineInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * TfL Unified API client. Responses are decoded by {@link TflLineDecoder} straight
+ * into the protobuf model served to our own clients.
+ * <p>
+ * Every request is timed until its body has been read, as
+ * tfl.upstream.requests{endpoint,outcome}. Retried and hedged attempts are each
+ * timed, since each is a request TfL had to serve.
+ */
 @Component
 @Slf4j
 public class TflApiClient {
 
+    private static final String METRIC_NAME = "tfl.upstream.requests";
+
     private final WebClient webClient;
     private final String appId;
     private final String appKey;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
 
     public TflApiClient(WebClient webClient,
             @Value("${tfl.api.app-id}") String appId,
-            @Value("${tfl.api.app-key}") String appKey) {
+            @Value("${tfl.api.app-key}") String appKey,
+            MeterRegistry meterRegistry) {
         this.webClient = webClient;
         this.appId = appId;
         this.appKey = appKey;
+        this.meterRegistry = meterRegistry;
     }
 
     private WebClient.RequestHeadersUriSpec<?> authenticatedRequest(WebClient webClient) {
@@ -41,30 +61,44 @@ public class TflApiClient {
     /**
      * Requirement 1: Get Status of a Given Tube Line
      */
-    public Flux<TflLineDto> getLineStatus(String lineId) {
+    public Flux<LineInfo> getLineStatus(String lineId) {
         String uri = String.format("/Line/%s/Status", lineId);
-        log.info("Fetching Line Status from TfL API: {}", uri);
+        log.debug("Fetching Line Status from TfL API: {}", uri);
 
-        return authenticatedRequest(webClient)
+        return timed("lineStatus", authenticatedRequest(webClient)
                 .uri(uriBuilder -> uriBuilder.path(uri).build())
                 .retrieve()
-                .bodyToFlux(TflLineDto.class)
-                .doOnError(e -> log.error("Error fetching line status for {}: {}", lineId, e.getMessage()));
+                .bodyToFlux(LineInfo.class)
+                .doOnError(e -> log.error("Error fetching line status for {}: {}", lineId, e.getMessage())));
+    }
+
+    /**
+     * Status of several lines in one request, using TfL's comma-separated form.
+     */
+    public Flux<LineInfo> getLineStatuses(Collection<String> lineIds) {
+        String uri = String.format("/Line/%s/Status", String.join(",", lineIds));
+        log.debug("Fetching Line Statuses from TfL API: {}", uri);
+
+        return timed("lineStatuses", authenticatedRequest(webClient)
+                .uri(uriBuilder -> uriBuilder.path(uri).build())
+                .retrieve()
+                .bodyToFlux(LineInfo.class)
+                .doOnError(e -> log.error("Error fetching line statuses for {}: {}", lineIds, e.getMessage())));
     }
 
     /**
      * Requirement 2: Future Status with Date Range
      */
-    public Flux<TflLineDto> getLineStatusWithDateRange(String lineId, String startDate, String endDate) {
+    public Flux<LineInfo> getLineStatusWithDateRange(String lineId, String startDate, String endDate) {
         String uri = String.format("/Line/%s/Status/%s/to/%s", lineId, startDate, endDate);
-        log.info("Fetching Future Line Status from TfL API: {}", uri);
+        log.debug("Fetching Future Line Status from TfL API: {}", uri);
 
-        return authenticatedRequest(webClient)
+        return timed("futureStatus", authenticatedRequest(webClient)
                 .uri(uriBuilder -> uriBuilder.path(uri).build())
                 .retrieve()
-                .bodyToFlux(TflLineDto.class)
+                .bodyToFlux(LineInfo.class)
                 .doOnError(e -> log.error("Error fetching future status for {} from {} to {}: {}", lineId, startDate,
-                        endDate, e.getMessage()));
+                        endDate, e.getMessage())));
     }
 
     /**
@@ -72,27 +106,45 @@ public class TflApiClient {
      * layer)
      * For tube only.
      */
-    public Flux<TflLineDto> getAllTubeLineStatuses() {
+    public Flux<LineInfo> getAllTubeLineStatuses() {
         String uri = "/Line/Mode/tube/Status";
-        log.info("Fetching All Tube Line Statuses from TfL API: {}", uri);
+        log.debug("Fetching All Tube Line Statuses from TfL API: {}", uri);
 
-        return authenticatedRequest(webClient)
+        return timed("allTube", authenticatedRequest(webClient)
                 .uri(uriBuilder -> uriBuilder.path(uri).build())
                 .retrieve()
-                .bodyToFlux(TflLineDto.class)
-                .doOnError(e -> log.error("Error fetching all tube line statuses: {}", e.getMessage()));
+                .bodyToFlux(LineInfo.class)
+                .doOnError(e -> log.error("Error fetching all tube line statuses: {}", e.getMessage())));
     }
 
-}
+    private Flux<LineInfo> timed(String endpoint, Flux<LineInfo> request) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return request
+                    .doOnComplete(() -> record(endpoint, "success", start))
+                    .doOnError(e -> record(endpoint, outcome(e), start))
+                    .doOnCancel(() -> record(endpoint, "cancelled", start));
+        });
+    }
 
-@Configuration
-class WebClientConfig {
-    @Bean
-    public WebClient tflWebClient(@Value("${tfl.api.base-url}") String baseUrl,
-            io.micrometer.observation.ObservationRegistry observationRegistry) {
-        return WebClient.builder()
-                .baseUrl(baseUrl)
-                .observationRegistry(observationRegistry)
-                .build();
+    private void record(String endpoint, String outcome, long start) {
+        timers.computeIfAbsent(endpoint + ":" + outcome, key -> Timer.builder(METRIC_NAME)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .description("TfL requests, until the response body has been read")
+                .register(meterRegistry))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is4xxClientError() ? "client_error" : "server_error";
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof io.netty.handler.timeout.TimeoutException) {
+                return "timeout";
+            }
+        }
+        return "error";
     }
 }
@@ -0,0 +1,263 @@
+package com.ig.group.tfl.status.client;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.grpc.ValidityPeriod;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.async.ByteBufferFeeder;
+import tools.jackson.core.json.JsonFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes TfL line status JSON straight into protobuf {@link LineInfo} messages,
+ * token by token with Jackson's non-blocking parser as body chunks arrive.
+ * Only the fields the API exposes are read; everything else (disruptions,
+ * routes, crowding and so on) is skipped without being built, and nothing is
+ * aggregated, so memory use does not grow with the size of the response.
+ * Accepts either an array of lines, as TfL normally returns, or a single line.
+ */
+public class TflLineDecoder extends AbstractDecoder<LineInfo> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public TflLineDecoder() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return LineInfo.class.equals(elementType.toClass()) && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<LineInfo> decode(Publisher<DataBuffer> input, ResolvableType elementType,
+            MimeType mimeType, Map<String, Object> hints) {
+        return Flux.defer(() -> {
+            LineTokenizer tokenizer = new LineTokenizer(
+                    JSON_FACTORY.createNonBlockingByteBufferParser(ObjectReadContext.empty()));
+            return Flux.from(input)
+                    .concatMapIterable(tokenizer::feed)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(tokenizer.endOfInput())))
+                    .doFinally(signal -> tokenizer.close());
+        });
+    }
+
+    private enum Scope {
+        ROOT, LINES, LINE, STATUSES, STATUS, PERIODS, PERIOD
+    }
+
+    /**
+     * Parse state for one response body. Scope tracks which message is being
+     * built; a skipped subtree is tracked by depth alone.
+     */
+    private static final class LineTokenizer {
+
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private Scope scope = Scope.ROOT;
+        private boolean topLevelArray;
+        private int skipDepth;
+        private String field;
+        private LineInfo.Builder line;
+        private StatusInfo.Builder status;
+        private ValidityPeriod.Builder period;
+
+        LineTokenizer(JsonParser parser) {
+            this.parser = parser;
+            this.feeder = (ByteBufferFeeder) parser.nonBlockingInputFeeder();
+        }
+
+        List<LineInfo> feed(DataBuffer buffer) {
+            List<LineInfo> lines = new ArrayList<>(0);
+            try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                while (chunks.hasNext()) {
+                    ByteBuffer chunk = chunks.next();
+                    feeder.feedInput(chunk);
+                    // Drained before the buffer is released, as the parser reads it in place
+                    drain(lines);
+                }
+            } catch (JacksonException e) {
+                throw new DecodingException("Malformed TfL line status JSON: " + e.getOriginalMessage(), e);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+            return lines;
+        }
+
+        List<LineInfo> endOfInput() {
+            List<LineInfo> lines = new ArrayList<>(0);
+            try {
+                feeder.endOfInput();
+                drain(lines);
+            } catch (JacksonException e) {
+                throw new DecodingException("Malformed TfL line status JSON: " + e.getOriginalMessage(), e);
+            }
+            if (scope != Scope.ROOT || skipDepth > 0) {
+                throw new DecodingException("Truncated TfL line status JSON");
+            }
+            return lines;
+        }
+
+        void close() {
+            parser.close();
+        }
+
+        private void drain(List<LineInfo> lines) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                LineInfo completed = onToken(token);
+                if (completed != null) {
+                    lines.add(completed);
+                }
+            }
+        }
+
+        private LineInfo onToken(JsonToken token) {
+            if (skipDepth > 0) {
+                if (token.isStructStart()) {
+                    skipDepth++;
+                } else if (token.isStructEnd()) {
+                    skipDepth--;
+                }
+                return null;
+            }
+            if (token == JsonToken.PROPERTY_NAME) {
+                field = parser.currentName();
+                return null;
+            }
+            return switch (scope) {
+                case ROOT -> {
+                    if (token == JsonToken.START_ARRAY) {
+                        topLevelArray = true;
+                        scope = Scope.LINES;
+                    } else if (token == JsonToken.START_OBJECT) {
+                        startLine();
+                    }
+                    yield null;
+                }
+                case LINES -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        startLine();
+                    } else if (token == JsonToken.END_ARRAY) {
+                        scope = Scope.ROOT;
+                    } else {
+                        skipIfStructure(token);
+                    }
+                    yield null;
+                }
+                case LINE -> onLineToken(token);
+                case STATUSES -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        status = StatusInfo.newBuilder();
+                        scope = Scope.STATUS;
+                    } else if (token == JsonToken.END_ARRAY) {
+                        scope = Scope.LINE;
+                    } else {
+                        skipIfStructure(token);
+                    }
+                    yield null;
+                }
+                case STATUS -> {
+                    onStatusToken(token);
+                    yield null;
+                }
+                case PERIODS -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        period = ValidityPeriod.newBuilder();
+                        scope = Scope.PERIOD;
+                    } else if (token == JsonToken.END_ARRAY) {
+                        scope = Scope.STATUS;
+                    } else {
+                        skipIfStructure(token);
+                    }
+                    yield null;
+                }
+                case PERIOD -> {
+                    onPeriodToken(token);
+                    yield null;
+                }
+            };
+        }
+
+        private void startLine() {
+            line = LineInfo.newBuilder();
+            scope = Scope.LINE;
+        }
+
+        private LineInfo onLineToken(JsonToken token) {
+            if (token == JsonToken.END_OBJECT) {
+                scope = topLevelArray ? Scope.LINES : Scope.ROOT;
+                LineInfo completed = line.build();
+                line = null;
+                return completed;
+            }
+            if (token == JsonToken.START_ARRAY && "lineStatuses".equals(field)) {
+                scope = Scope.STATUSES;
+            } else if (token == JsonToken.VALUE_STRING && "id".equals(field)) {
+                line.setId(parser.getString());
+            } else if (token == JsonToken.VALUE_STRING && "name".equals(field)) {
+                line.setName(parser.getString());
+            } else {
+                skipIfStructure(token);
+            }
+            return null;
+        }
+
+        private void onStatusToken(JsonToken token) {
+            if (token == JsonToken.END_OBJECT) {
+                line.addStatuses(status);
+                status = null;
+                scope = Scope.STATUSES;
+            } else if (token == JsonToken.START_ARRAY && "validityPeriods".equals(field)) {
+                scope = Scope.PERIODS;
+            } else if (token == JsonToken.VALUE_NUMBER_INT && "statusSeverity".equals(field)) {
+                status.setStatusSeverity(parser.getIntValue());
+            } else if (token == JsonToken.VALUE_STRING && "statusSeverityDescription".equals(field)) {
+                status.setStatusSeverityDescription(parser.getString());
+            } else if (token == JsonToken.VALUE_STRING && "reason".equals(field)) {
+                status.setReason(parser.getString());
+            } else {
+                skipIfStructure(token);
+            }
+        }
+
+        private void onPeriodToken(JsonToken token) {
+            if (token == JsonToken.END_OBJECT) {
+                status.addValidityPeriods(period);
+                period = null;
+                scope = Scope.PERIODS;
+            } else if (token == JsonToken.VALUE_STRING && "fromDate".equals(field)) {
+                period.setFromDate(parser.getString());
+            } else if (token == JsonToken.VALUE_STRING && "toDate".equals(field)) {
+                period.setToDate(parser.getString());
+            } else if (token.isBoolean() && "isNow".equals(field)) {
+                period.setIsNow(token == JsonToken.VALUE_TRUE);
+            } else {
+                skipIfStructure(token);
+            }
+        }
+
+        private void skipIfStructure(JsonToken token) {
+            if (token.isStructStart()) {
+                skipDepth = 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ig.group.tfl.status.client;
+
+/**
+ * Raised when a TfL call is shed because the adaptive concurrency limit is
+ * reached and the call could not be queued, or waited in the queue too long.
+ */
+public class UpstreamOverloadedException extends RuntimeException {
+
+    public UpstreamOverloadedException(String message) {
+        super(message, null, false, false);
+    }
+}
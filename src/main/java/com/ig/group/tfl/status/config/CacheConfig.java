@@ -0,0 +1,112 @@
+package com.ig.group.tfl.status.config;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.ig.group.tfl.status.cache.CacheInvalidationBus;
+import com.ig.group.tfl.status.cache.ReactiveValueCache;
+import com.ig.group.tfl.status.cache.RedisCacheTier;
+import com.ig.group.tfl.status.grpc.FutureLineStatusResponse;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.UnplannedDisruptionsResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Near-cache setup: a bounded Caffeine L1 per replica in front of a shared Redis
+ * L2 (disable with tfl.cache.redis.enabled=false to run L1 only).
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String CACHE_NAME_LINE_STATUS = "lineStatus";
+    public static final String CACHE_NAME_FUTURE_STATUS = "futureStatus";
+    public static final String CACHE_NAME_UNPLANNED = "unplannedDisruptions";
+
+    private final Duration ttl;
+    private final Duration maxStaleness;
+    private final long maximumSize;
+    private final String keyPrefix;
+    private final Duration redisTimeout;
+    private final Duration refreshLock;
+
+    public CacheConfig(@Value("${tfl.cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${tfl.cache.max-staleness:5m}") Duration maxStaleness,
+            @Value("${tfl.cache.maximum-size:1000}") long maximumSize,
+            @Value("${tfl.cache.redis.key-prefix:tfl-status}") String keyPrefix,
+            @Value("${tfl.cache.redis.timeout:50ms}") Duration redisTimeout,
+            @Value("${tfl.cache.redis.refresh-lock:10s}") Duration refreshLock) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxStaleness = maxStaleness;
+        this.maximumSize = maximumSize;
+        this.keyPrefix = keyPrefix;
+        this.redisTimeout = redisTimeout;
+        this.refreshLock = refreshLock;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tfl.cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public ReactiveRedisTemplate<String, byte[]> cacheRedisTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tfl.cache.redis.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationBus cacheInvalidationBus(ReactiveRedisConnectionFactory connectionFactory) {
+        return new CacheInvalidationBus(new ReactiveStringRedisTemplate(connectionFactory),
+                keyPrefix + ":cache-invalidation");
+    }
+
+    @Bean
+    public ReactiveValueCache<String, LineStatusResponse> lineStatusCache(
+            ObjectProvider<ReactiveRedisTemplate<String, byte[]>> redisTemplate,
+            ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        return buildCache(CACHE_NAME_LINE_STATUS, LineStatusResponse.parser(), redisTemplate, invalidationBus);
+    }
+
+    @Bean
+    public ReactiveValueCache<String, FutureLineStatusResponse> futureStatusCache(
+            ObjectProvider<ReactiveRedisTemplate<String, byte[]>> redisTemplate,
+            ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        return buildCache(CACHE_NAME_FUTURE_STATUS, FutureLineStatusResponse.parser(), redisTemplate, invalidationBus);
+    }
+
+    @Bean
+    public ReactiveValueCache<String, UnplannedDisruptionsResponse> unplannedDisruptionsCache(
+            ObjectProvider<ReactiveRedisTemplate<String, byte[]>> redisTemplate,
+            ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        return buildCache(CACHE_NAME_UNPLANNED, UnplannedDisruptionsResponse.parser(), redisTemplate, invalidationBus);
+    }
+
+    private <V extends Message> ReactiveValueCache<String, V> buildCache(String name, Parser<V> parser,
+            ObjectProvider<ReactiveRedisTemplate<String, byte[]>> redisTemplate,
+            ObjectProvider<CacheInvalidationBus> invalidationBus) {
+        ReactiveRedisTemplate<String, byte[]> template = redisTemplate.getIfAvailable();
+        CacheInvalidationBus bus = invalidationBus.getIfAvailable();
+        if (template == null || bus == null) {
+            return new ReactiveValueCache<>(name, ttl, maxStaleness, maximumSize, null, Clock.systemUTC());
+        }
+
+        // L2 keeps entries for the full staleness window so cold replicas can serve them while TfL is down
+        RedisCacheTier<V> sharedTier = new RedisCacheTier<>(name, keyPrefix, template, parser, maxStaleness,
+                redisTimeout, refreshLock, bus);
+        ReactiveValueCache<String, V> cache = new ReactiveValueCache<>(name, ttl, maxStaleness, maximumSize,
+                sharedTier, Clock.systemUTC());
+        bus.register(name, cache::invalidate);
+        return cache;
+    }
+}
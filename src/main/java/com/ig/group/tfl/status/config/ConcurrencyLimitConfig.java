@@ -0,0 +1,29 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.client.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Adaptive limit on TfL calls in flight (tfl.concurrency.*). The maximum should
+ * not exceed the connection pool, or calls past the pool queue there instead.
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+            @Value("${tfl.concurrency.enabled:true}") boolean enabled,
+            @Value("${tfl.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${tfl.concurrency.min-limit:2}") int minLimit,
+            @Value("${tfl.concurrency.max-limit:200}") int maxLimit,
+            @Value("${tfl.concurrency.max-queue:100}") int maxQueue,
+            @Value("${tfl.concurrency.queue-timeout:100ms}") Duration queueTimeout) {
+        return new AdaptiveConcurrencyLimiter(enabled, initialLimit, minLimit, maxLimit, maxQueue, queueTimeout,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ig.group.tfl.status.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exports a Reactor Netty connection pool's occupancy as tfl.api.pool.* gauges.
+ * The pool keeps one sub-pool per remote host, so tags stay bounded by the
+ * number of upstream hosts.
+ */
+class ConnectionPoolMeters implements ConnectionProvider.MeterRegistrar {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    ConnectionPoolMeters(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+            ConnectionPoolMetrics metrics) {
+        Tags tags = Tags.of("pool", poolName, "remote", remote(remoteAddress));
+        meters.put(id, List.of(
+                gauge("tfl.api.pool.connections.active", "Connections acquired by a request", tags, metrics,
+                        ConnectionPoolMetrics::acquiredSize),
+                gauge("tfl.api.pool.connections.idle", "Open connections waiting in the pool", tags, metrics,
+                        ConnectionPoolMetrics::idleSize),
+                gauge("tfl.api.pool.connections.total", "Open connections, active and idle", tags, metrics,
+                        ConnectionPoolMetrics::allocatedSize),
+                gauge("tfl.api.pool.connections.max", "Connection limit of the pool", tags, metrics,
+                        ConnectionPoolMetrics::maxAllocatedSize),
+                gauge("tfl.api.pool.pending", "Requests waiting to acquire a connection", tags, metrics,
+                        ConnectionPoolMetrics::pendingAcquireSize)));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        List<Meter> removed = meters.remove(id);
+        if (removed != null) {
+            removed.forEach(meterRegistry::remove);
+        }
+    }
+
+    private Meter gauge(String name, String description, Tags tags, ConnectionPoolMetrics metrics,
+            ToDoubleFunction<ConnectionPoolMetrics> value) {
+        return Gauge.builder(name, metrics, value)
+                .description(description)
+                .tags(tags)
+                .strongReference(true)
+                .register(meterRegistry);
+    }
+
+    private static String remote(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return String.valueOf(address);
+    }
+}
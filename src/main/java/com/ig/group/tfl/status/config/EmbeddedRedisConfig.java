@@ -1,9 +1,5 @@
 package com.ig.group.tfl.status.config;
 
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
-import org.springframework.context.annotation.Bean;
-
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
@@ -11,20 +7,51 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import redis.embedded.RedisServer;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Set;
+
+/**
+ * Forks a local Redis for running without Docker. It is only started when
+ * spring.data.redis.host is local and nothing is listening on the port yet, so a
+ * deployment pointing at a real Redis never extracts or forks the binary; set
+ * tfl.redis.embedded.enabled=false to skip it outright. The checks run at
+ * startup rather than as bean conditions, so they still apply to an AOT build.
+ */
 @Configuration
 @Slf4j
 public class EmbeddedRedisConfig {
 
-    private final RedisServer redisServer;
+    private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "::1");
+    private static final int PROBE_TIMEOUT_MILLIS = 100;
 
-    public EmbeddedRedisConfig(@Value("${spring.data.redis.port:6379}") int redisPort) {
-        log.info("Initializing Embedded Redis Server on port {}", redisPort);
-        this.redisServer = new RedisServer(redisPort);
+    private final boolean enabled;
+    private final String redisHost;
+    private final int redisPort;
+    private RedisServer redisServer;
+
+    public EmbeddedRedisConfig(@Value("${tfl.redis.embedded.enabled:true}") boolean enabled,
+            @Value("${spring.data.redis.host:localhost}") String redisHost,
+            @Value("${spring.data.redis.port:6379}") int redisPort) {
+        this.enabled = enabled;
+        this.redisHost = redisHost;
+        this.redisPort = redisPort;
     }
 
     @PostConstruct
     public void startRedis() {
+        if (!enabled || !LOCAL_HOSTS.contains(redisHost)) {
+            log.debug("Not starting embedded Redis for {}:{}", redisHost, redisPort);
+            return;
+        }
+        if (isListening(redisPort)) {
+            log.info("Redis is already listening on port {}, not starting embedded Redis", redisPort);
+            return;
+        }
+        log.info("Initializing Embedded Redis Server on port {}", redisPort);
         try {
+            redisServer = new RedisServer(redisPort);
             redisServer.start();
             log.info("Embedded Redis started successfully.");
         } catch (Exception e) {
@@ -32,11 +59,6 @@ public class EmbeddedRedisConfig {
         }
     }
 
-    @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("lineStatus", "futureStatus", "unplannedDisruptions");
-    }
-
     @PreDestroy
     public void stopRedis() {
         if (redisServer != null) {
@@ -44,4 +66,13 @@ public class EmbeddedRedisConfig {
             log.info("Embedded Redis stopped successfully.");
         }
     }
+
+    private static boolean isListening(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), PROBE_TIMEOUT_MILLIS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.client.HedgePolicy;
+import com.ig.group.tfl.status.client.RequestHedger;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Hedging of slow TfL calls (tfl.hedging.*), off by default. Hedges are tied to
+ * the tflApi circuit breaker and only sent while it is closed.
+ */
+@Configuration
+public class HedgingConfig {
+
+    @Bean
+    public RequestHedger requestHedger(CircuitBreakerRegistry circuitBreakerRegistry, MeterRegistry meterRegistry,
+            @Value("${tfl.hedging.enabled:false}") boolean enabled,
+            @Value("${tfl.hedging.percentile:0.95}") double percentile,
+            @Value("${tfl.hedging.min-delay:20ms}") Duration minDelay,
+            @Value("${tfl.hedging.max-delay:1s}") Duration maxDelay,
+            @Value("${tfl.hedging.budget-percent:5}") double budgetPercent) {
+        return new RequestHedger(new HedgePolicy(enabled, percentile, minDelay, maxDelay, budgetPercent),
+                circuitBreakerRegistry.circuitBreaker("tflApi"), meterRegistry);
+    }
+}
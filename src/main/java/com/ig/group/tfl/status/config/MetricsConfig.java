@@ -0,0 +1,70 @@
+package com.ig.group.tfl.status.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.grpc.MetricCollectingServerInterceptor;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.util.Locale;
+
+/**
+ * Meters that no auto-configuration binds here: resilience4j's circuit breaker
+ * and retry metrics (its Spring Boot 3 auto-configuration does not apply), counts
+ * of TfL retries and breaker transitions, and per-method gRPC server metrics.
+ * SLO histogram buckets are set under management.metrics.distribution.slo.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final String TFL_API = "tflApi";
+
+    @Bean
+    public TaggedCircuitBreakerMetrics circuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry);
+    }
+
+    @Bean
+    public TaggedRetryMetrics retryMetrics(RetryRegistry retryRegistry) {
+        return TaggedRetryMetrics.ofRetryRegistry(retryRegistry);
+    }
+
+    /**
+     * resilience4j.retry.calls counts calls by outcome; this counts each retry
+     * attempt, and each breaker transition that a scraped state gauge could miss.
+     */
+    @Bean
+    public MeterBinder upstreamResilienceEvents(CircuitBreakerRegistry circuitBreakerRegistry,
+            RetryRegistry retryRegistry) {
+        return registry -> {
+            Counter retries = Counter.builder("tfl.upstream.retries")
+                    .description("TfL calls retried after a failed attempt")
+                    .register(registry);
+            retryRegistry.retry(TFL_API).getEventPublisher().onRetry(event -> retries.increment());
+            circuitBreakerRegistry.circuitBreaker(TFL_API).getEventPublisher().onStateTransition(event -> Counter
+                    .builder("tfl.upstream.circuitbreaker.transitions")
+                    .tag("state", event.getStateTransition().getToState().name().toLowerCase(Locale.ROOT))
+                    .description("Circuit breaker transitions, by the state entered")
+                    .register(registry)
+                    .increment());
+        };
+    }
+
+    /**
+     * Runs after admission control; rejected calls are counted by grpc.server.admission.
+     */
+    @Bean
+    @GrpcGlobalServerInterceptor
+    @Order(Ordered.HIGHEST_PRECEDENCE + 2)
+    public MetricCollectingServerInterceptor grpcServerMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new MetricCollectingServerInterceptor(meterRegistry);
+    }
+}
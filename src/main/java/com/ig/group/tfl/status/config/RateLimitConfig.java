@@ -0,0 +1,47 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.ratelimit.ClientRateLimiter;
+import com.ig.group.tfl.status.ratelimit.LocalClientRateLimiter;
+import com.ig.group.tfl.status.ratelimit.RateLimitPolicy;
+import com.ig.group.tfl.status.ratelimit.RedisClientRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Per-client rate limiting: buckets local to each replica by default, or one
+ * budget per client shared through Redis with tfl.rate-limit.mode=redis.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    private final RateLimitPolicy policy;
+    private final long maxClients;
+
+    public RateLimitConfig(@Value("${tfl.rate-limit.limit-for-period:100}") int limitForPeriod,
+            @Value("${tfl.rate-limit.period:1m}") Duration period,
+            @Value("${tfl.rate-limit.max-clients:100000}") long maxClients) {
+        this.policy = new RateLimitPolicy(limitForPeriod, period);
+        this.maxClients = maxClients;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tfl.rate-limit.mode", havingValue = "redis")
+    public ClientRateLimiter redisClientRateLimiter(ReactiveRedisConnectionFactory connectionFactory,
+            @Value("${tfl.cache.redis.key-prefix:tfl-status}") String keyPrefix,
+            @Value("${tfl.rate-limit.redis-timeout:20ms}") Duration timeout) {
+        return new RedisClientRateLimiter(new ReactiveStringRedisTemplate(connectionFactory), keyPrefix, timeout,
+                new LocalClientRateLimiter(policy, maxClients));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tfl.rate-limit.mode", havingValue = "local", matchIfMissing = true)
+    public ClientRateLimiter localClientRateLimiter() {
+        return new LocalClientRateLimiter(policy, maxClients);
+    }
+}
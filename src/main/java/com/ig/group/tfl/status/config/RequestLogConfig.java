@@ -0,0 +1,54 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.logging.AsyncAppenderMetrics;
+import com.ig.group.tfl.status.logging.GrpcRequestLogInterceptor;
+import com.ig.group.tfl.status.logging.RequestLog;
+import com.ig.group.tfl.status.logging.RequestLogWebFilter;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Sampled request logging for REST and gRPC (tfl.request-log.*), and metrics for
+ * the async log appenders configured in logback-spring.xml.
+ */
+@Configuration
+public class RequestLogConfig {
+
+    @Bean
+    public RequestLog requestLog(Environment environment,
+            @Value("${tfl.request-log.sample-rate:0.01}") double sampleRate,
+            @Value("${tfl.request-log.slow-threshold:50ms}") Duration slowThreshold) {
+        Map<String, Double> endpointRates = Binder.get(environment)
+                .bind("tfl.request-log.sample-rates", Bindable.mapOf(String.class, Double.class))
+                .orElseGet(Map::of);
+        return new RequestLog(sampleRate, endpointRates, slowThreshold);
+    }
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public RequestLogWebFilter requestLogWebFilter(RequestLog requestLog) {
+        return new RequestLogWebFilter(requestLog);
+    }
+
+    @Bean
+    @GrpcGlobalServerInterceptor
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public GrpcRequestLogInterceptor grpcRequestLogInterceptor(RequestLog requestLog) {
+        return new GrpcRequestLogInterceptor(requestLog);
+    }
+
+    @Bean
+    public AsyncAppenderMetrics asyncAppenderMetrics() {
+        return new AsyncAppenderMetrics();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.severity.SeverityClassifier;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Severity mappings from tfl.severity.*, so they can be adjusted without a code
+ * change. Everything downstream depends only on {@link SeverityClassifier}.
+ */
+@Configuration
+public class SeverityConfig {
+
+    @Bean
+    public SeverityClassifier severityClassifier(@Value("${tfl.severity.good-codes:10}") Set<Integer> goodCodes,
+            @Value("${tfl.severity.planned-codes:11,13}") Set<Integer> plannedCodes,
+            @Value("${tfl.severity.planned-keywords:planned}") List<String> plannedKeywords) {
+        return new SeverityTable(goodCodes, plannedCodes, plannedKeywords);
+    }
+}
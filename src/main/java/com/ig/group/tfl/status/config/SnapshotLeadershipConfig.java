@@ -0,0 +1,42 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.snapshot.RedisSnapshotLeadership;
+import com.ig.group.tfl.status.snapshot.SnapshotLeadership;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * Which replica polls TfL for the tube snapshot: every replica by default, or
+ * one leader elected through Redis with tfl.snapshot.mode=redis.
+ */
+@Configuration
+public class SnapshotLeadershipConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tfl.snapshot.mode", havingValue = "redis")
+    public SnapshotLeadership redisSnapshotLeadership(ReactiveRedisConnectionFactory connectionFactory,
+            @Value("${tfl.cache.redis.key-prefix:tfl-status}") String keyPrefix,
+            @Value("${tfl.snapshot.lease-duration:10s}") Duration leaseDuration,
+            @Value("${tfl.snapshot.redis-timeout:1s}") Duration timeout) {
+        RedisSerializationContext<String, byte[]> context = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build();
+        return new RedisSnapshotLeadership(new ReactiveRedisTemplate<>(connectionFactory, context), keyPrefix,
+                leaseDuration, timeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tfl.snapshot.mode", havingValue = "local", matchIfMissing = true)
+    public SnapshotLeadership standaloneSnapshotLeadership() {
+        return SnapshotLeadership.standalone();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.client.TflLineDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * TfL WebClient on a dedicated, bounded Reactor Netty connection pool. Every
+ * stage of an upstream call has a deadline: pool acquisition, connect, and each
+ * read of the response, so a hung TfL socket fails the call (and lets the retry
+ * and circuit breaker act) instead of holding a connection forever. Callers
+ * beyond the pool and its pending-acquire queue are rejected immediately.
+ */
+@Configuration
+public class WebClientConfig {
+
+    static final String POOL_NAME = "tfl-api";
+
+    private final String baseUrl;
+    private final Duration connectTimeout;
+    private final Duration responseTimeout;
+    private final boolean http2;
+
+    public WebClientConfig(@Value("${tfl.api.base-url}") String baseUrl,
+            @Value("${tfl.api.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${tfl.api.response-timeout:5s}") Duration responseTimeout,
+            @Value("${tfl.api.http2:false}") boolean http2) {
+        this.baseUrl = baseUrl;
+        this.connectTimeout = connectTimeout;
+        this.responseTimeout = responseTimeout;
+        this.http2 = http2;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider tflConnectionProvider(MeterRegistry meterRegistry,
+            @Value("${tfl.api.pool.max-connections:200}") int maxConnections,
+            @Value("${tfl.api.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+            @Value("${tfl.api.pool.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${tfl.api.pool.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${tfl.api.pool.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${tfl.api.pool.eviction-interval:15s}") Duration evictionInterval) {
+        ConnectionPoolMeters meters = new ConnectionPoolMeters(meterRegistry);
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                // Idle connections are closed before TfL's load balancer drops them; the
+                // life time bound also moves traffic onto new addresses after DNS changes
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .metrics(true, () -> meters)
+                .build();
+    }
+
+    @Bean
+    public WebClient tflWebClient(ConnectionProvider tflConnectionProvider, ObservationRegistry observationRegistry,
+            @Value("${tfl.api.dns.cache-max-ttl:60s}") Duration dnsCacheMaxTtl,
+            @Value("${tfl.api.dns.cache-negative-ttl:5s}") Duration dnsCacheNegativeTtl,
+            @Value("${tfl.api.dns.query-timeout:2s}") Duration dnsQueryTimeout) {
+        HttpClient httpClient = HttpClient.create(tflConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                // Applies from the request being sent until the response is read, and
+                // between reads of the body, so a stalled stream times out as well
+                .responseTimeout(responseTimeout)
+                .resolver(spec -> spec
+                        .cacheMaxTimeToLive(dnsCacheMaxTtl)
+                        .cacheNegativeTimeToLive(dnsCacheNegativeTtl)
+                        .queryTimeout(dnsQueryTimeout));
+        if (http2) {
+            // Negotiated over TLS, falling back to HTTP/1.1 when TfL does not offer h2
+            httpClient = baseUrl.startsWith("https")
+                    ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.customCodecs().register(new TflLineDecoder()))
+                .observationRegistry(observationRegistry)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.ig.group.tfl.status.controller;
+
+import com.ig.group.tfl.status.ratelimit.ClientRateLimitExceededException;
+import com.ig.group.tfl.status.ratelimit.ClientRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Admits REST requests against the calling client's own budget. Clients are
+ * keyed by remote address, or by the last X-Forwarded-For hop when
+ * tfl.rate-limit.trust-forwarded-for is set (only safe behind a proxy that
+ * appends it, as earlier hops are client-controlled).
+ */
+@Component
+class ClientAdmission {
+
+    static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final ClientRateLimiter rateLimiter;
+    private final boolean trustForwardedFor;
+
+    ClientAdmission(ClientRateLimiter rateLimiter,
+            @Value("${tfl.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+        this.rateLimiter = rateLimiter;
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    /**
+     * @return empty once admitted, or a {@link ClientRateLimitExceededException}
+     */
+    Mono<Void> admit(ServerHttpRequest request) {
+        return rateLimiter.tryAcquire(clientKey(request))
+                .flatMap(decision -> decision.allowed()
+                        ? Mono.empty()
+                        : Mono.error(new ClientRateLimitExceededException(rateLimiter.policy(),
+                                decision.retryAfter())));
+    }
+
+    String clientKey(ServerHttpRequest request) {
+        if (trustForwardedFor) {
+            String lastHop = lastHop(request.getHeaders().getFirst(FORWARDED_FOR_HEADER));
+            if (lastHop != null) {
+                return lastHop;
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : remoteAddress.getHostString();
+    }
+
+    /**
+     * @return the address appended by the nearest proxy, or null if there is none
+     */
+    static String lastHop(String forwardedFor) {
+        if (forwardedFor == null) {
+            return null;
+        }
+        String lastHop = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+        return lastHop.isEmpty() ? null : lastHop;
+    }
+}
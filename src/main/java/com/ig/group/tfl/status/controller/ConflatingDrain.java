@@ -0,0 +1,103 @@
+package com.ig.group.tfl.status.controller;
+
+import reactor.core.publisher.Flux;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Holds at most one pending message per key and hands them on only while the
+ * consumer can accept more. A newer message replaces an unsent older one and
+ * moves to the back of the queue, so messages leave in the order they arrived
+ * and a slow consumer catches up to the latest state instead of a backlog.
+ * Only one thread drains at a time; a drain requested while another is running
+ * is picked up by the running one. A terminal action, such as failing the
+ * stream, runs on the draining thread too, so it never overlaps a send.
+ */
+final class ConflatingDrain<T> {
+
+    private final Map<String, T> pending = new LinkedHashMap<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final BooleanSupplier canSend;
+    private final Consumer<T> sender;
+    private volatile Runnable terminal;
+    // Only touched by the draining thread
+    private boolean terminated;
+
+    ConflatingDrain(BooleanSupplier canSend, Consumer<T> sender) {
+        this.canSend = canSend;
+        this.sender = sender;
+    }
+
+    /**
+     * Applies the conflating drain to a Flux, conflating whenever the subscriber
+     * has no outstanding demand.
+     */
+    static <T> Flux<T> conflate(Flux<T> source, Function<T, String> key) {
+        return Flux.create(sink -> {
+            ConflatingDrain<T> drain = new ConflatingDrain<>(() -> sink.requestedFromDownstream() > 0, sink::next);
+            sink.onRequest(n -> drain.drain());
+            sink.onDispose(source.subscribe(message -> drain.offer(key.apply(message), message), sink::error,
+                    sink::complete));
+        });
+    }
+
+    void offer(String key, T message) {
+        synchronized (pending) {
+            pending.remove(key);
+            pending.put(key, message);
+        }
+        drain();
+    }
+
+    /**
+     * Runs the action in place of any messages not yet sent, whether or not the
+     * consumer is ready; later offers are never sent.
+     */
+    void terminate(Runnable action) {
+        terminal = action;
+        drain();
+    }
+
+    void clear() {
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            T next;
+            while (terminal == null && canSend.getAsBoolean() && (next = poll()) != null) {
+                sender.accept(next);
+            }
+            if (terminal != null && !terminated) {
+                terminated = true;
+                clear();
+                terminal.run();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private T poll() {
+        synchronized (pending) {
+            Iterator<T> iterator = pending.values().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            T next = iterator.next();
+            iterator.remove();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ig.group.tfl.status.controller;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+
+/**
+ * Sends server-streaming updates only as fast as gRPC flow control allows,
+ * conflating per key while the call is not ready (see {@link ConflatingDrain}).
+ * Failures go through the drain as well, since the observer must not be called
+ * from two threads at once.
+ */
+final class ConflatingStreamSender<T> {
+
+    private final ServerCallStreamObserver<T> observer;
+    private final ConflatingDrain<T> drain;
+    private final Disposable.Swap subscription = Disposables.swap();
+    private volatile boolean closed;
+
+    ConflatingStreamSender(StreamObserver<T> responseObserver) {
+        this.observer = (ServerCallStreamObserver<T>) responseObserver;
+        this.drain = new ConflatingDrain<>(() -> !closed && observer.isReady(), observer::onNext);
+        this.observer.setOnReadyHandler(drain::drain);
+        this.observer.setOnCancelHandler(this::cancel);
+    }
+
+    void bind(Disposable source) {
+        subscription.update(source);
+    }
+
+    void offer(String key, T message) {
+        if (!closed) {
+            drain.offer(key, message);
+        }
+    }
+
+    void fail(Throwable error) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // As GrpcExceptionAdvice maps it for unary calls
+        Status status = error instanceof IllegalArgumentException ? Status.INVALID_ARGUMENT : Status.INTERNAL;
+        drain.terminate(() -> observer.onError(status.withDescription(error.getMessage()).asRuntimeException()));
+    }
+
+    private void cancel() {
+        closed = true;
+        drain.clear();
+        subscription.dispose();
+    }
+}
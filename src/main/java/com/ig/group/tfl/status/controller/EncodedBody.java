@@ -0,0 +1,96 @@
+package com.ig.group.tfl.status.controller;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Every REST representation of one response message, encoded once. The binary
+ * and JSON forms are built up front; gzip variants are built on first use.
+ * Holds no reference to the message, so it can be cached against it weakly.
+ * A body for a single request holds only the binary form, plus JSON if asked for.
+ */
+final class EncodedBody {
+
+    private static final JsonFormat.Printer JSON = JsonFormat.printer().omittingInsignificantWhitespace();
+
+    private final byte[] protobuf;
+    private final byte[] json;
+    private final String contentHash;
+    private volatile byte[] protobufGzip;
+    private volatile byte[] jsonGzip;
+
+    private EncodedBody(byte[] protobuf, byte[] json) {
+        this.protobuf = protobuf;
+        this.json = json;
+        this.contentHash = HexFormat.of().formatHex(sha256(protobuf), 0, 8);
+    }
+
+    static EncodedBody of(Message message) {
+        return of(message, false);
+    }
+
+    /**
+     * @param protobufOnly skip the JSON form, for a body only sent as protobuf;
+     *                     the binary form is always built, as the ETag hashes it
+     */
+    static EncodedBody of(Message message, boolean protobufOnly) {
+        try {
+            byte[] json = protobufOnly ? null : JSON.print(message).getBytes(StandardCharsets.UTF_8);
+            return new EncodedBody(message.toByteArray(), json);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Could not render " + message.getDescriptorForType().getName(), e);
+        }
+    }
+
+    /**
+     * Strong validator for one representation: the content hash, qualified by
+     * format and encoding because each variant has different bytes.
+     */
+    String etag(boolean asProtobuf, boolean gzip) {
+        return "\"" + contentHash + (asProtobuf ? "-pb" : "-json") + (gzip ? "-gz" : "") + "\"";
+    }
+
+    byte[] bytes(boolean asProtobuf, boolean gzip) {
+        if (!asProtobuf && json == null) {
+            throw new IllegalStateException("Body was encoded as protobuf only");
+        }
+        if (!gzip) {
+            return asProtobuf ? protobuf : json;
+        }
+        // Benign race: two threads may both compress, and either result is correct
+        if (asProtobuf) {
+            byte[] compressed = protobufGzip;
+            return compressed != null ? compressed : (protobufGzip = gzip(protobuf));
+        }
+        byte[] compressed = jsonGzip;
+        return compressed != null ? compressed : (jsonGzip = gzip(json));
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
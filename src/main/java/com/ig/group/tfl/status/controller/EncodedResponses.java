@@ -0,0 +1,125 @@
+package com.ig.group.tfl.status.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.protobuf.Message;
+import com.ig.group.tfl.status.service.StatusResult;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes REST responses from bytes encoded once per response message rather
+ * than running the protobuf codecs on every request. Snapshot and cache reads
+ * return the same message instance until the data changes, so their bodies are
+ * cached by identity. Responses built for one request (batches, merged date
+ * ranges, history) would never hit that cache and are encoded directly, in the
+ * negotiated format only. Each representation carries a strong ETag and a
+ * matching If-None-Match is answered with 304 and no body.
+ */
+@Component
+class EncodedResponses {
+
+    static final MediaType PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+    private static final List<MediaType> PROTOBUF_TYPES = List.of(PROTOBUF,
+            MediaType.parseMediaType("application/vnd.google.protobuf"), MediaType.APPLICATION_OCTET_STREAM);
+    // Below this gzip saves too little to be worth the client's inflate
+    private static final int MIN_GZIP_BYTES = 256;
+
+    // Weak keys compare by identity and let bodies go with their message
+    private final Cache<Message, EncodedBody> bodies = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(10_000)
+            .build();
+
+    /**
+     * For a message held by the snapshot or a cache, and so read by many requests.
+     */
+    <T extends Message> ResponseEntity<byte[]> toResponseEntity(StatusResult<T> result, HttpHeaders request) {
+        boolean asProtobuf = prefersProtobuf(request.getAccept());
+        return toResponseEntity(result, request, bodies.get(result.value(), EncodedBody::of), asProtobuf);
+    }
+
+    /**
+     * For a message built for this request alone.
+     */
+    <T extends Message> ResponseEntity<byte[]> toResponseEntityOnce(StatusResult<T> result, HttpHeaders request) {
+        boolean asProtobuf = prefersProtobuf(request.getAccept());
+        return toResponseEntity(result, request, EncodedBody.of(result.value(), asProtobuf), asProtobuf);
+    }
+
+    private <T extends Message> ResponseEntity<byte[]> toResponseEntity(StatusResult<T> result, HttpHeaders request,
+            EncodedBody body, boolean asProtobuf) {
+        boolean gzip = acceptsGzip(request.getFirst(HttpHeaders.ACCEPT_ENCODING))
+                && body.bytes(asProtobuf, false).length >= MIN_GZIP_BYTES;
+        String etag = body.etag(asProtobuf, gzip);
+
+        if (matchesAny(request.getIfNoneMatch(), etag)) {
+            return ResponseFreshness.withFreshness(ResponseEntity.status(HttpStatus.NOT_MODIFIED), result)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseFreshness.withFreshness(ResponseEntity.ok(), result)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(asProtobuf ? PROTOBUF : MediaType.APPLICATION_JSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body.bytes(asProtobuf, gzip));
+    }
+
+    /**
+     * JSON unless the most preferred acceptable type is a protobuf one; wildcards
+     * select JSON, as the codecs did.
+     */
+    static boolean prefersProtobuf(List<MediaType> accept) {
+        List<MediaType> byQuality = new ArrayList<>(accept);
+        byQuality.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : byQuality) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (PROTOBUF_TYPES.stream().anyMatch(type::isCompatibleWith)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so a W/ prefix on the client's tag is ignored.
+     */
+    static boolean matchesAny(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,10 @@
 package com.ig.group.tfl.status.controller;
 
+import com.ig.group.tfl.status.client.UpstreamOverloadedException;
+import com.ig.group.tfl.status.ratelimit.ClientRateLimitExceededException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
-import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -14,15 +16,15 @@ import java.util.Map;
 @Slf4j
 public class GlobalExceptionAdvice {
 
-    @ExceptionHandler(RequestNotPermitted.class)
-    public ResponseEntity<Map<String, String>> handleRateLimiter(RequestNotPermitted e) {
-        log.warn("Rate limit exceeded for client: {}", e.getMessage());
+    @ExceptionHandler(ClientRateLimitExceededException.class)
+    public ResponseEntity<Map<String, String>> handleClientRateLimit(ClientRateLimitExceededException e) {
+        log.warn("Client rate limit exceeded, retry after {}", e.getRetryAfter());
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
-                // Red Flag requirement: Return Retry-After header
-                .header("Retry-After", "60")
+                // Seconds until the client's bucket has refilled enough for one request
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.retryAfterSeconds()))
                 .body(Map.of(
                         "error", "Too Many Requests",
-                        "message", "You have exceeded the API rate limit of 100 requests per minute."));
+                        "message", e.getMessage()));
     }
 
     @ExceptionHandler(CallNotPermittedException.class)
@@ -35,6 +37,25 @@ public class GlobalExceptionAdvice {
                         "The upstream Transport for London API is temporarily unavailable. The Circuit Breaker has opened to protect cluster resources."));
     }
 
+    @ExceptionHandler(UpstreamOverloadedException.class)
+    public ResponseEntity<Map<String, String>> handleUpstreamOverloaded(UpstreamOverloadedException e) {
+        log.warn("Shed TfL call: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "error", "Service Unavailable",
+                        "message", "The upstream Transport for London API is responding slowly. Please retry shortly."));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidArgument(IllegalArgumentException e) {
+        log.warn("Rejected invalid request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of(
+                        "error", "Bad Request",
+                        "message", e.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
         log.error("Unhandled Exception: ", e);
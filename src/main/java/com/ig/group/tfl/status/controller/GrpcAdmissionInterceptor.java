@@ -0,0 +1,251 @@
+package com.ig.group.tfl.status.controller;
+
+import com.ig.group.tfl.status.ratelimit.ClientRateLimiter;
+import com.ig.group.tfl.status.ratelimit.RateDecision;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Admission control for every gRPC call, applied before the call is started so a
+ * rejected call costs no request deserialization, cache lookup or TfL work.
+ * Each peer has its own budget (separate from its REST budget), and unary calls
+ * are capped globally at tfl.grpc.max-in-flight. Watch streams are long-lived
+ * and idle, so they are admitted per peer but not counted as in flight.
+ * Rejections fail fast with RESOURCE_EXHAUSTED; nothing is queued.
+ * <p>
+ * The local limiter decides at once. The Redis limiter answers on its own
+ * thread, so rather than block the gRPC thread the call waits unstarted behind
+ * a listener that holds its events until the decision is made. The call is then
+ * started or closed on a worker thread, never on the Redis client's I/O thread.
+ */
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@GrpcGlobalServerInterceptor
+public class GrpcAdmissionInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> RETRY_AFTER_TRAILER = Metadata.Key.of("retry-after",
+            Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> FORWARDED_FOR = Metadata.Key.of("x-forwarded-for",
+            Metadata.ASCII_STRING_MARSHALLER);
+    private static final Executor DECISION_EXECUTOR = Schedulers.boundedElastic()::schedule;
+
+    private final ClientRateLimiter rateLimiter;
+    private final boolean trustForwardedFor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter admitted;
+    private final Counter rejectedRateLimit;
+    private final Counter rejectedInFlight;
+
+    public GrpcAdmissionInterceptor(ClientRateLimiter rateLimiter,
+            @Value("${tfl.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor,
+            @Value("${tfl.grpc.max-in-flight:2000}") int maxInFlight,
+            MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.trustForwardedFor = trustForwardedFor;
+        this.maxInFlight = maxInFlight;
+        // Tagged by reason only: a per-peer tag would be unbounded cardinality
+        this.admitted = admissionCounter(meterRegistry, "admitted");
+        this.rejectedRateLimit = admissionCounter(meterRegistry, "rejected_rate_limit");
+        this.rejectedInFlight = admissionCounter(meterRegistry, "rejected_in_flight");
+        Gauge.builder("grpc.server.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Unary gRPC calls admitted and not yet completed")
+                .register(meterRegistry);
+    }
+
+    private static Counter admissionCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("grpc.server.admission")
+                .description("gRPC calls by admission outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        String peer = peerKey(call, headers);
+        CompletableFuture<RateDecision> decision = rateLimiter.tryAcquire("grpc:" + peer).toFuture();
+        if (decision.isDone() && !decision.isCompletedExceptionally()) {
+            return admit(call, headers, next, peer, decision.join());
+        }
+        DelayedListener<ReqT> delayed = new DelayedListener<>();
+        decision.whenCompleteAsync((result, e) -> {
+            if (e != null) {
+                // The limiters fail open themselves; this only guards against one that does not
+                log.debug("gRPC rate limit check for {} failed, admitting: {}", peer, e.getMessage());
+            }
+            try {
+                delayed.setListener(admit(call, headers, next, peer, result));
+            } catch (RuntimeException startFailure) {
+                call.close(Status.fromThrowable(startFailure), new Metadata());
+                delayed.setListener(new ServerCall.Listener<>() {
+                });
+            }
+        }, DECISION_EXECUTOR);
+        return delayed;
+    }
+
+    private <ReqT, RespT> ServerCall.Listener<ReqT> admit(ServerCall<ReqT, RespT> call, Metadata headers,
+            ServerCallHandler<ReqT, RespT> next, String peer, RateDecision decision) {
+        if (decision != null && !decision.allowed()) {
+            rejectedRateLimit.increment();
+            log.debug("gRPC call {} from {} rejected by rate limit", call.getMethodDescriptor().getFullMethodName(),
+                    peer);
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_AFTER_TRAILER, Long.toString(decision.retryAfterSeconds()));
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Too Many Requests. "
+                    + rateLimiter.policy().limit() + " requests per " + rateLimiter.policy().period().toSeconds()
+                    + " seconds allowed per client."), trailers);
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        if (call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+            admitted.increment();
+            return next.startCall(call, headers);
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejectedInFlight.increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Server busy. Too many requests in flight."),
+                    new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        admitted.increment();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        };
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+                @Override
+                public void onComplete() {
+                    release.run();
+                    super.onComplete();
+                }
+
+                @Override
+                public void onCancel() {
+                    release.run();
+                    super.onCancel();
+                }
+            };
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Stands in for the call's listener until admission is decided, then replays
+     * the events received meanwhile, in order, to the listener of the started or
+     * rejected call and forwards later ones to it directly.
+     */
+    private static final class DelayedListener<ReqT> extends ServerCall.Listener<ReqT> {
+
+        // Null once the delegate is set and every held event has been replayed
+        private List<Consumer<ServerCall.Listener<ReqT>>> pending = new ArrayList<>();
+        private volatile ServerCall.Listener<ReqT> delegate;
+
+        void setListener(ServerCall.Listener<ReqT> listener) {
+            while (true) {
+                List<Consumer<ServerCall.Listener<ReqT>>> events;
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        pending = null;
+                        delegate = listener;
+                        return;
+                    }
+                    events = pending;
+                    pending = new ArrayList<>();
+                }
+                events.forEach(event -> event.accept(listener));
+            }
+        }
+
+        private void dispatch(Consumer<ServerCall.Listener<ReqT>> event) {
+            ServerCall.Listener<ReqT> listener = delegate;
+            if (listener == null) {
+                synchronized (this) {
+                    if (pending != null) {
+                        pending.add(event);
+                        return;
+                    }
+                    listener = delegate;
+                }
+            }
+            event.accept(listener);
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            dispatch(listener -> listener.onMessage(message));
+        }
+
+        @Override
+        public void onHalfClose() {
+            dispatch(ServerCall.Listener::onHalfClose);
+        }
+
+        @Override
+        public void onCancel() {
+            dispatch(ServerCall.Listener::onCancel);
+        }
+
+        @Override
+        public void onComplete() {
+            dispatch(ServerCall.Listener::onComplete);
+        }
+
+        @Override
+        public void onReady() {
+            dispatch(ServerCall.Listener::onReady);
+        }
+    }
+
+    private String peerKey(ServerCall<?, ?> call, Metadata headers) {
+        if (trustForwardedFor) {
+            String lastHop = ClientAdmission.lastHop(headers.get(FORWARDED_FOR));
+            if (lastHop != null) {
+                return lastHop;
+            }
+        }
+        SocketAddress remoteAddress = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        if (remoteAddress instanceof InetSocketAddress inet) {
+            return inet.getAddress() != null ? inet.getAddress().getHostAddress() : inet.getHostString();
+        }
+        return remoteAddress != null ? remoteAddress.toString() : "unknown";
+    }
+}
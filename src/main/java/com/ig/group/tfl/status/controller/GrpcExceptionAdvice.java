@@ -1,7 +1,7 @@
 package com.ig.group.tfl.status.controller;
 
+import com.ig.group.tfl.status.client.UpstreamOverloadedException;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
-import io.github.resilience4j.ratelimiter.RequestNotPermitted;
 import io.grpc.Status;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.advice.GrpcAdvice;
@@ -11,13 +11,6 @@ import net.devh.boot.grpc.server.advice.GrpcExceptionHandler;
 @Slf4j
 public class GrpcExceptionAdvice {
 
-    @GrpcExceptionHandler(RequestNotPermitted.class)
-    public Status handleRateLimiter(RequestNotPermitted e) {
-        log.warn("gRPC Rate limit exceeded: {}", e.getMessage());
-        return Status.RESOURCE_EXHAUSTED
-                .withDescription("Too Many Requests. You have exceeded the API rate limit of 100 requests per minute.");
-    }
-
     @GrpcExceptionHandler(CallNotPermittedException.class)
     public Status handleCircuitBreaker(CallNotPermittedException e) {
         log.error("gRPC Circuit Breaker is OPEN. Halting requests.");
@@ -25,6 +18,19 @@ public class GrpcExceptionAdvice {
                 .withDescription("Service Unavailable. The upstream TfL API is temporarily down.");
     }
 
+    @GrpcExceptionHandler(UpstreamOverloadedException.class)
+    public Status handleUpstreamOverloaded(UpstreamOverloadedException e) {
+        log.warn("gRPC shed TfL call: {}", e.getMessage());
+        return Status.UNAVAILABLE
+                .withDescription("Service Unavailable. The upstream TfL API is responding slowly.");
+    }
+
+    @GrpcExceptionHandler(IllegalArgumentException.class)
+    public Status handleInvalidArgument(IllegalArgumentException e) {
+        log.warn("gRPC rejected invalid request: {}", e.getMessage());
+        return Status.INVALID_ARGUMENT.withDescription(e.getMessage());
+    }
+
     @GrpcExceptionHandler(Exception.class)
     public Status handleGenericException(Exception e) {
         log.error("gRPC Unhandled Exception: ", e);
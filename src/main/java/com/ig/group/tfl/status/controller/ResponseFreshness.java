@@ -0,0 +1,39 @@
+package com.ig.group.tfl.status.controller;
+
+import com.ig.group.tfl.status.service.StatusResult;
+import io.grpc.Metadata;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Instant;
+
+/**
+ * Exposes how old the served data is: the standard Age header plus X-Data-Stale
+ * over REST, and the equivalent trailers over gRPC.
+ */
+final class ResponseFreshness {
+
+    static final String STALE_HEADER = "X-Data-Stale";
+    static final Metadata.Key<String> AGE_TRAILER = Metadata.Key.of("x-data-age-seconds",
+            Metadata.ASCII_STRING_MARSHALLER);
+    static final Metadata.Key<String> STALE_TRAILER = Metadata.Key.of("x-data-stale",
+            Metadata.ASCII_STRING_MARSHALLER);
+
+    private ResponseFreshness() {
+    }
+
+    static ResponseEntity.BodyBuilder withFreshness(ResponseEntity.BodyBuilder builder, StatusResult<?> result) {
+        return builder
+                .header(HttpHeaders.AGE, ageSeconds(result))
+                .header(STALE_HEADER, Boolean.toString(result.stale()));
+    }
+
+    static void applyTo(Metadata trailers, StatusResult<?> result) {
+        trailers.put(AGE_TRAILER, ageSeconds(result));
+        trailers.put(STALE_TRAILER, Boolean.toString(result.stale()));
+    }
+
+    private static String ageSeconds(StatusResult<?> result) {
+        return Long.toString(result.age(Instant.now()).toSeconds());
+    }
+}
@@ -0,0 +1,43 @@
+package com.ig.group.tfl.status.controller;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+
+/**
+ * Lets service implementations attach trailers to a call. Responses are produced
+ * on Reactor threads where the gRPC Context is not current, so implementations
+ * must read {@link #current()} synchronously when the call starts and fill it in
+ * before completing the call.
+ */
+@GrpcGlobalServerInterceptor
+public class ResponseTrailersInterceptor implements ServerInterceptor {
+
+    private static final Context.Key<Metadata> RESPONSE_TRAILERS = Context.key("response-trailers");
+
+    public static Metadata current() {
+        Metadata trailers = RESPONSE_TRAILERS.get();
+        return trailers != null ? trailers : new Metadata();
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        Metadata responseTrailers = new Metadata();
+        ServerCall<ReqT, RespT> trailingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                trailers.merge(responseTrailers);
+                super.close(status, trailers);
+            }
+        };
+        Context context = Context.current().withValue(RESPONSE_TRAILERS, responseTrailers);
+        return Contexts.interceptCall(context, trailingCall, headers, next);
+    }
+}
@@ -1,8 +1,15 @@
 package com.ig.group.tfl.status.controller;
 
+import com.ig.group.tfl.status.client.UpstreamOverloadedException;
 import com.ig.group.tfl.status.grpc.*;
+import com.ig.group.tfl.status.history.LineStatusHistory;
+import com.ig.group.tfl.status.service.StatusResult;
 import com.ig.group.tfl.status.service.TflStatusService;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.ig.group.tfl.status.snapshot.TubeChangeFeed;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,62 +23,121 @@ public class TubeStatusGrpcService
         extends com.ig.group.tfl.status.grpc.TubeStatusServiceGrpc.TubeStatusServiceImplBase {
 
     private final TflStatusService statusService;
+    private final TubeChangeFeed changeFeed;
+    private final LineStatusHistory history;
 
     // Requirement 1
     @Override
-    @RateLimiter(name = "clientIpLimiter")
     public void getLineStatus(LineStatusRequest request, StreamObserver<LineStatusResponse> responseObserver) {
-        log.info("gRPC: Received request for Line Status: {}", request.getLineId());
+        log.debug("gRPC: Received request for Line Status: {}", request.getLineId());
+        Metadata trailers = ResponseTrailersInterceptor.current();
         statusService.getLineStatus(request.getLineId())
                 .subscribe(
-                        response -> {
-                            responseObserver.onNext(response);
-                            responseObserver.onCompleted();
-                        },
-                        error -> responseObserver.onError(
-                                io.grpc.Status.INTERNAL.withDescription(error.getMessage()).asRuntimeException()));
+                        result -> complete(responseObserver, trailers, result),
+                        error -> responseObserver.onError(toStatus(error)));
+    }
+
+    @Override
+    public void getLineStatuses(LineStatusesRequest request, StreamObserver<LineStatusesResponse> responseObserver) {
+        log.debug("gRPC: Received request for Line Statuses: {}", request.getLineIdsList());
+        Metadata trailers = ResponseTrailersInterceptor.current();
+        statusService.getLineStatuses(request.getLineIdsList())
+                .subscribe(
+                        result -> complete(responseObserver, trailers, result),
+                        error -> responseObserver.onError(toStatus(error)));
     }
 
     // Requirement 2
     @Override
-    @RateLimiter(name = "clientIpLimiter")
     public void getFutureLineStatus(FutureLineStatusRequest request,
             StreamObserver<FutureLineStatusResponse> responseObserver) {
-        log.info("gRPC: Received request for Future Line Status: {}", request.getLineId());
-        Mono<FutureLineStatusResponse> responseMono;
+        log.debug("gRPC: Received request for Future Line Status: {}", request.getLineId());
+        Metadata trailers = ResponseTrailersInterceptor.current();
+        Mono<StatusResult<FutureLineStatusResponse>> responseMono;
 
         if (request.hasDateRange()) {
             responseMono = statusService.getFutureLineStatus(request.getLineId(), request.getDateRange().getStartDate(),
                     request.getDateRange().getEndDate());
         } else {
             // "If no date range is provided, return current status" - Requirement 2
-            log.info("No date range provided, fetching current status.");
+            log.debug("No date range provided, fetching current status.");
             responseMono = statusService.getLineStatus(request.getLineId())
-                    .map(statusRes -> FutureLineStatusResponse.newBuilder().setLine(statusRes.getLine()).build());
+                    .map(result -> result.map(
+                            statusRes -> FutureLineStatusResponse.newBuilder().setLine(statusRes.getLine()).build()));
         }
 
         responseMono.subscribe(
-                response -> {
-                    responseObserver.onNext(response);
-                    responseObserver.onCompleted();
-                },
-                error -> responseObserver
-                        .onError(io.grpc.Status.INTERNAL.withDescription(error.getMessage()).asRuntimeException()));
+                result -> complete(responseObserver, trailers, result),
+                error -> responseObserver.onError(toStatus(error)));
     }
 
     // Requirement 3
     @Override
-    @RateLimiter(name = "clientIpLimiter")
     public void getUnplannedDisruptions(EmptyRequest request,
             StreamObserver<UnplannedDisruptionsResponse> responseObserver) {
-        log.info("gRPC: Received request for all Unplanned Disruptions");
+        log.debug("gRPC: Received request for all Unplanned Disruptions");
+        Metadata trailers = ResponseTrailersInterceptor.current();
         statusService.getUnplannedDisruptions()
                 .subscribe(
-                        response -> {
-                            responseObserver.onNext(response);
-                            responseObserver.onCompleted();
-                        },
-                        error -> responseObserver.onError(
-                                io.grpc.Status.INTERNAL.withDescription(error.getMessage()).asRuntimeException()));
+                        result -> complete(responseObserver, trailers, result),
+                        error -> responseObserver.onError(toStatus(error)));
+    }
+
+    @Override
+    public void getLineStatusHistory(LineStatusHistoryRequest request,
+            StreamObserver<LineStatusHistoryResponse> responseObserver) {
+        log.debug("gRPC: Received request for Line Status History: {} from {} to {}", request.getLineId(),
+                request.getFrom(), request.getTo());
+        // Answered from memory; an invalid range is mapped to INVALID_ARGUMENT by GrpcExceptionAdvice
+        complete(responseObserver, ResponseTrailersInterceptor.current(),
+                history.query(request.getLineId(), request.getFrom(), request.getTo()));
+    }
+
+    @Override
+    public void watchLineStatus(WatchLineStatusRequest request, StreamObserver<LineStatusResponse> responseObserver) {
+        log.debug("gRPC: Received watch request for Line Status: {}", request.getLineIdsList());
+        ConflatingStreamSender<LineStatusResponse> sender = new ConflatingStreamSender<>(responseObserver);
+        sender.bind(changeFeed.lineChanges(request.getLineIdsList())
+                .subscribe(response -> sender.offer(response.getLine().getId(), response), sender::fail));
+    }
+
+    @Override
+    public void watchUnplannedDisruptions(EmptyRequest request,
+            StreamObserver<UnplannedDisruptionsResponse> responseObserver) {
+        log.debug("gRPC: Received watch request for Unplanned Disruptions");
+        ConflatingStreamSender<UnplannedDisruptionsResponse> sender = new ConflatingStreamSender<>(responseObserver);
+        sender.bind(changeFeed.unplannedChanges()
+                .subscribe(response -> sender.offer("unplanned", response), sender::fail));
+    }
+
+    private static <T> void complete(StreamObserver<T> responseObserver, Metadata trailers, StatusResult<T> result) {
+        ResponseFreshness.applyTo(trailers, result);
+        responseObserver.onNext(result.value());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Errors from the reactive calls arrive after the handler has returned, so
+     * GrpcExceptionAdvice never sees them; map them the same way here.
+     */
+    private static StatusRuntimeException toStatus(Throwable error) {
+        if (error instanceof CallNotPermittedException) {
+            log.error("gRPC Circuit Breaker is OPEN. Halting requests.");
+            return Status.UNAVAILABLE
+                    .withDescription("Service Unavailable. The upstream TfL API is temporarily down.")
+                    .asRuntimeException();
+        }
+        if (error instanceof UpstreamOverloadedException) {
+            log.warn("gRPC shed TfL call: {}", error.getMessage());
+            return Status.UNAVAILABLE
+                    .withDescription("Service Unavailable. The upstream TfL API is responding slowly.")
+                    .asRuntimeException();
+        }
+        if (error instanceof IllegalArgumentException) {
+            log.warn("gRPC rejected invalid request: {}", error.getMessage());
+            return Status.INVALID_ARGUMENT.withDescription(error.getMessage()).asRuntimeException();
+        }
+        log.error("gRPC Unhandled Exception: ", error);
+        return Status.INTERNAL.withDescription(error.getMessage()).asRuntimeException();
     }
 }
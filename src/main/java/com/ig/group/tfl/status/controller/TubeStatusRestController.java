@@ -1,19 +1,35 @@
 package com.ig.group.tfl.status.controller;
 
 import com.ig.group.tfl.status.grpc.FutureLineStatusResponse;
+import com.ig.group.tfl.status.grpc.LineStatusHistoryResponse;
 import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.LineStatusesResponse;
 import com.ig.group.tfl.status.grpc.UnplannedDisruptionsResponse;
+import com.ig.group.tfl.status.history.LineStatusHistory;
 import com.ig.group.tfl.status.service.TflStatusService;
-import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
-import io.github.resilience4j.reactor.ratelimiter.operator.RateLimiterOperator;
+import com.ig.group.tfl.status.snapshot.TubeEvent;
+import com.ig.group.tfl.status.snapshot.TubeEventLog;
+import com.ig.group.tfl.status.snapshot.TubeSnapshot;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+
 @RestController
 @RequestMapping("/api/line")
 @Slf4j
@@ -21,37 +37,140 @@ import reactor.core.publisher.Mono;
 public class TubeStatusRestController {
 
     private final TflStatusService statusService;
-    private final RateLimiter rateLimiter;
+    private final EncodedResponses encodedResponses;
+    private final TubeEventLog eventLog;
+    private final Duration heartbeatInterval;
+    private final ClientAdmission admission;
+    private final LineStatusHistory history;
+    private final TubeSnapshotHolder snapshotHolder;
 
-    public TubeStatusRestController(TflStatusService statusService, RateLimiterRegistry rateLimiterRegistry) {
+    public TubeStatusRestController(TflStatusService statusService, EncodedResponses encodedResponses,
+            TubeEventLog eventLog,
+            @Value("${tfl.events.heartbeat-interval:15s}") Duration heartbeatInterval,
+            ClientAdmission admission, LineStatusHistory history, TubeSnapshotHolder snapshotHolder) {
         this.statusService = statusService;
-        this.rateLimiter = rateLimiterRegistry.rateLimiter("clientIpLimiter");
+        this.encodedResponses = encodedResponses;
+        this.eventLog = eventLog;
+        this.heartbeatInterval = heartbeatInterval;
+        this.admission = admission;
+        this.history = history;
+        this.snapshotHolder = snapshotHolder;
     }
 
     @Operation(summary = "Get Status of a Given Tube Line", description = "Requirement 1: Query the current status for a specific line (e.g., 'central'). Returns disruption details if applicable.")
-    @GetMapping(value = "/{id}/status", headers = "Accept-Version=v1")
-    public Mono<LineStatusResponse> getLineStatus(@PathVariable("id") String lineId,
-            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
-        log.info("REST: Received request for Line Status: {}", lineId);
-        return statusService.getLineStatus(lineId)
-                .transformDeferred(RateLimiterOperator.of(rateLimiter));
+    @GetMapping(value = "/{id:[^,]+}/status", headers = "Accept-Version=v1")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LineStatusResponse.class)))
+    public Mono<ResponseEntity<byte[]>> getLineStatus(@PathVariable("id") String lineId,
+            ServerHttpRequest request) {
+        log.debug("REST: Received request for Line Status: {}", lineId);
+        return admission.admit(request)
+                .then(Mono.defer(() -> statusService.getLineStatus(lineId)))
+                .map(result -> encodedResponses.toResponseEntity(result, request.getHeaders()));
+    }
+
+    @Operation(summary = "Get Status of Several Tube Lines", description = "Comma-separated line ids (e.g., 'central,northern,victoria'). Duplicates are answered once and the whole batch counts as one request against the rate limit.")
+    @GetMapping(value = "/{ids:[^,]+,.+}/status", headers = "Accept-Version=v1")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LineStatusesResponse.class)))
+    public Mono<ResponseEntity<byte[]>> getLineStatuses(@PathVariable("ids") List<String> lineIds,
+            ServerHttpRequest request) {
+        log.debug("REST: Received request for Line Statuses: {}", lineIds);
+        return admission.admit(request)
+                .then(Mono.defer(() -> statusService.getLineStatuses(lineIds)))
+                .map(result -> encodedResponses.toResponseEntityOnce(result, request.getHeaders()));
     }
 
     @Operation(summary = "Get Future Status with Date Range", description = "Requirement 2: Query future status spanning a specific start and end date. Formats should be YYYY-MM-DD.")
     @GetMapping(value = "/{id}/status/{startDate}/to/{endDate}", headers = "Accept-Version=v1")
-    public Mono<FutureLineStatusResponse> getFutureStatus(@PathVariable("id") String lineId,
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = FutureLineStatusResponse.class)))
+    public Mono<ResponseEntity<byte[]>> getFutureStatus(@PathVariable("id") String lineId,
             @PathVariable("startDate") String startDate,
-            @PathVariable("endDate") String endDate) {
-        log.info("REST: Received request for Future Line Status: {} from {} to {}", lineId, startDate, endDate);
-        return statusService.getFutureLineStatus(lineId, startDate, endDate)
-                .transformDeferred(RateLimiterOperator.of(rateLimiter));
+            @PathVariable("endDate") String endDate,
+            ServerHttpRequest request) {
+        log.debug("REST: Received request for Future Line Status: {} from {} to {}", lineId, startDate, endDate);
+        return admission.admit(request)
+                .then(Mono.defer(() -> statusService.getFutureLineStatus(lineId, startDate, endDate)))
+                .map(result -> encodedResponses.toResponseEntityOnce(result, request.getHeaders()));
+    }
+
+    @Operation(summary = "Get Status History of a Tube Line", description = "Every change to the line's statuses recorded by this instance between 'from' and 'to' (ISO-8601 instants, e.g. '2026-10-17T06:00:00Z'), oldest first. The first change may precede 'from': it gives the statuses in effect at 'from'. Omit 'from' for the oldest recorded change and 'to' for now.")
+    @GetMapping(value = "/{id}/status/history", headers = "Accept-Version=v1")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = LineStatusHistoryResponse.class)))
+    public Mono<ResponseEntity<byte[]>> getLineStatusHistory(@PathVariable("id") String lineId,
+            @RequestParam(value = "from", required = false) String from,
+            @RequestParam(value = "to", required = false) String to,
+            ServerHttpRequest request) {
+        log.debug("REST: Received request for Line Status History: {} from {} to {}", lineId, from, to);
+        return admission.admit(request)
+                .then(Mono.fromCallable(() -> history.query(lineId, from, to)))
+                .map(result -> encodedResponses.toResponseEntityOnce(result, request.getHeaders()));
     }
 
     @Operation(summary = "Get All Unplanned Disruptions", description = "Requirement 3: Queries all tube lines and filters out strictly planned disruptions, displaying only those experiencing unforeseen issues.")
     @GetMapping(value = "/disruptions/unplanned", headers = "Accept-Version=v1")
-    public Mono<UnplannedDisruptionsResponse> getUnplannedDisruptions() {
-        log.info("REST: Received request for Unplanned Disruptions");
-        return statusService.getUnplannedDisruptions()
-                .transformDeferred(RateLimiterOperator.of(rateLimiter));
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = UnplannedDisruptionsResponse.class)))
+    public Mono<ResponseEntity<byte[]>> getUnplannedDisruptions(ServerHttpRequest request) {
+        log.debug("REST: Received request for Unplanned Disruptions");
+        return admission.admit(request)
+                .then(Mono.defer(() -> statusService.getUnplannedDisruptions()))
+                .map(result -> encodedResponses.toResponseEntity(result, request.getHeaders()));
+    }
+
+    // Event streams carry no Accept-Version constraint, as browser EventSource clients cannot set request headers
+    @Operation(summary = "Stream Status Changes of a Tube Line", description = "Server-Sent Events: the current status of the line, then an event whenever it changes. Reconnecting with Last-Event-ID resumes where the client left off.")
+    @GetMapping(value = "/{id}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamLineStatus(@PathVariable("id") String lineId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            ServerHttpRequest request) {
+        log.debug("REST: Received stream request for Line Status: {} (Last-Event-ID {})", lineId, lastEventId);
+        String key = TubeSnapshot.normalize(lineId.trim());
+        // Checked once lines are known, so a typo is a 400 rather than a stream of heartbeats forever
+        TubeSnapshot snapshot = snapshotHolder.current();
+        if (!snapshot.isEmpty() && snapshot.lineStatus(key) == null) {
+            throw new IllegalArgumentException("Unknown tube line id: " + lineId);
+        }
+        return stream(request, lastEventId, event -> TubeEventLog.LINE_STATUS.equals(event.type()) && key.equals(event.key()));
+    }
+
+    @Operation(summary = "Stream Unplanned Disruption Changes", description = "Server-Sent Events: the current unplanned disruptions, then an event whenever the set changes. Reconnecting with Last-Event-ID resumes where the client left off.")
+    @GetMapping(value = "/disruptions/unplanned/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamUnplannedDisruptions(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            ServerHttpRequest request) {
+        log.debug("REST: Received stream request for Unplanned Disruptions (Last-Event-ID {})", lastEventId);
+        return stream(request, lastEventId, event -> TubeEventLog.UNPLANNED_DISRUPTIONS.equals(event.type()));
+    }
+
+    /**
+     * Events are conflated per key while the client is not reading, and
+     * heartbeat comments keep idle connections open through proxies.
+     */
+    private Flux<ServerSentEvent<String>> stream(ServerHttpRequest request, String lastEventId,
+            Predicate<TubeEvent> filter) {
+        Flux<ServerSentEvent<String>> events = ConflatingDrain
+                .conflate(eventLog.events(resumeFrom(lastEventId)).filter(filter), TubeEvent::key)
+                .map(event -> ServerSentEvent.builder(event.data())
+                        .id(Long.toString(event.id()))
+                        .event(event.type())
+                        .build());
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeatInterval)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+        return admission.admit(request)
+                .thenMany(Flux.defer(() -> Flux.merge(events, heartbeats)));
+    }
+
+    /**
+     * A Last-Event-ID that is not one of our ids is treated as a new client
+     * rather than an error, since proxies and other servers may have set it.
+     */
+    private static Long resumeFrom(String lastEventId) {
+        if (lastEventId == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
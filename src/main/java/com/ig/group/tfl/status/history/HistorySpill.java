@@ -0,0 +1,150 @@
+package com.ig.group.tfl.status.history;
+
+import com.google.protobuf.CodedInputStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only file of length-delimited {@link HistoryRecord}s. A record cut
+ * short by a crash is truncated away when the file is replayed, so appends
+ * carry on from the last whole record. Writes are buffered and flushed once per
+ * snapshot; a failed write is logged and skipped rather than stopping history.
+ * The file is rewritten with only the records still held in memory by
+ * {@link #rewrite}, replacing it atomically. Once closed, nothing more is
+ * written, so a late append cannot reopen the file after shutdown.
+ */
+@Slf4j
+final class HistorySpill {
+
+    private final Path path;
+    private OutputStream out;
+    private long records;
+    private boolean closed;
+
+    HistorySpill(Path path) {
+        this.path = path;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * @return the number of records replayed
+     */
+    synchronized int replay(Consumer<HistoryRecord> consumer) throws IOException {
+        long valid = 0;
+        int count = 0;
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path))) {
+            CodedInputStream in = CodedInputStream.newInstance(file);
+            in.setSizeLimit(Integer.MAX_VALUE);
+            try {
+                while (!in.isAtEnd()) {
+                    HistoryRecord record = HistoryRecord.parseFrom(in.readByteArray());
+                    consumer.accept(record);
+                    valid = in.getTotalBytesRead();
+                    count++;
+                }
+            } catch (IOException e) {
+                log.warn("Truncating {} after {} whole records: {}", path, count, e.getMessage());
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        records = count;
+        return count;
+    }
+
+    /**
+     * @return the number of records in the file, as replayed, rewritten and appended
+     */
+    synchronized long records() {
+        return records;
+    }
+
+    synchronized void append(HistoryRecord record) {
+        if (closed) {
+            return;
+        }
+        try {
+            if (out == null) {
+                Path directory = path.toAbsolutePath().getParent();
+                Files.createDirectories(directory);
+                out = new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND));
+            }
+            record.writeDelimitedTo(out);
+            records++;
+        } catch (IOException e) {
+            log.warn("Could not append to line status history {}: {}", path, e.toString());
+        }
+    }
+
+    /**
+     * Replaces the file with the given records, written to a temporary file first
+     * so that a crash leaves either the old file or the new one.
+     */
+    synchronized void rewrite(List<HistoryRecord> retained) {
+        if (closed) {
+            return;
+        }
+        closeFile();
+        Path rewritten = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(rewritten))) {
+                for (HistoryRecord record : retained) {
+                    record.writeDelimitedTo(file);
+                }
+            }
+            Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = retained.size();
+        } catch (IOException e) {
+            log.warn("Could not rewrite line status history {}: {}", path, e.toString());
+        }
+    }
+
+    synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            if (out != null) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Could not flush line status history {}: {}", path, e.toString());
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        closeFile();
+    }
+
+    private void closeFile() {
+        try {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        } catch (IOException e) {
+            log.warn("Could not close line status history {}: {}", path, e.toString());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.ig.group.tfl.status.history;
+
+import com.ig.group.tfl.status.grpc.LineStatusChange;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity ring buffer of one line's status changes, held as parallel
+ * primitive arrays: epoch seconds, severity code and interned reason id, 16
+ * bytes per status. A change with several statuses takes one row per status,
+ * all with the same time; rows after the first are flagged as continuations.
+ * Times never decrease, so a range is found by binary search. Once full, each
+ * new row evicts the oldest.
+ */
+final class LineHistory {
+
+    static final int BYTES_PER_ENTRY = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    private static final int CONTINUATION = 1 << 30;
+
+    private final long[] times;
+    private final int[] severities;
+    private final int[] reasonIds;
+    private final ReasonInterner interner;
+    private int head;
+    private int size;
+    private boolean evicted;
+    private List<StatusInfo> latest = List.of();
+
+    LineHistory(int capacity, ReasonInterner interner) {
+        this.times = new long[capacity];
+        this.severities = new int[capacity];
+        this.reasonIds = new int[capacity];
+        this.interner = interner;
+    }
+
+    /**
+     * Records the line's statuses as of the given time, unless they are the same
+     * as the latest recorded ones.
+     *
+     * @return whether a change was recorded
+     */
+    synchronized boolean record(long epochSeconds, List<StatusInfo> statuses) {
+        List<StatusInfo> stripped = statuses.stream()
+                .map(status -> status.toBuilder().clearValidityPeriods().build())
+                .toList();
+        if (stripped.equals(latest) || stripped.size() > times.length) {
+            return false;
+        }
+        latest = stripped;
+        // A snapshot restored from disk or shared by another replica may carry an earlier time
+        long time = size == 0 ? epochSeconds : Math.max(epochSeconds, times[index(size - 1)]);
+        for (int i = 0; i < stripped.size(); i++) {
+            StatusInfo status = stripped.get(i);
+            int reasonId = interner.acquire(status.toBuilder().clearStatusSeverity().build());
+            append(time, status.getStatusSeverity() | (i > 0 ? CONTINUATION : 0), reasonId);
+        }
+        return true;
+    }
+
+    /**
+     * @return the changes made from {@code from} to {@code to} inclusive, oldest
+     *         first, preceded by the change in effect at {@code from} if any
+     */
+    synchronized List<LineStatusChange> between(long from, long to) {
+        List<LineStatusChange> changes = new ArrayList<>();
+        int first = firstAtOrAfter(from);
+        // A change made exactly at from is itself the one in effect then
+        int start = first < size && times[index(first)] == from ? first : Math.max(0, first - 1);
+        while (start > 0 && isContinuation(start)) {
+            start--;
+        }
+        // The oldest change may have been partly evicted
+        while (start < size && isContinuation(start)) {
+            start++;
+        }
+        int end = firstAtOrAfter(to + 1);
+        LineStatusChange.Builder change = null;
+        for (int i = start; i < end; i++) {
+            int slot = index(i);
+            if (!isContinuation(i)) {
+                if (change != null) {
+                    changes.add(change.build());
+                }
+                change = LineStatusChange.newBuilder().setChangedAtEpochSeconds(times[slot]);
+            }
+            change.addStatuses(interner.get(reasonIds[slot]).toBuilder()
+                    .setStatusSeverity(severities[slot] & ~CONTINUATION));
+        }
+        if (change != null) {
+            changes.add(change.build());
+        }
+        return changes;
+    }
+
+    /**
+     * @return whether changes made at or after the given time may have been evicted
+     */
+    synchronized boolean truncatedAfter(long from) {
+        return evicted && (size == 0 || times[head] > from);
+    }
+
+    private void append(long time, int severity, int reasonId) {
+        int slot;
+        if (size == times.length) {
+            slot = head;
+            interner.release(reasonIds[slot]);
+            head = (head + 1) % times.length;
+            evicted = true;
+        } else {
+            slot = index(size++);
+        }
+        times[slot] = time;
+        severities[slot] = severity;
+        reasonIds[slot] = reasonId;
+    }
+
+    /**
+     * @return the position of the first row at or after the time, or size if none
+     */
+    private int firstAtOrAfter(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[index(mid)] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean isContinuation(int position) {
+        return (severities[index(position)] & CONTINUATION) != 0;
+    }
+
+    private int index(int position) {
+        return (head + position) % times.length;
+    }
+}
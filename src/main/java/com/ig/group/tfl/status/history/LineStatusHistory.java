@@ -0,0 +1,188 @@
+package com.ig.group.tfl.status.history;
+
+import com.ig.group.tfl.status.grpc.LineStatusChange;
+import com.ig.group.tfl.status.grpc.LineStatusHistoryResponse;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.service.StatusResult;
+import com.ig.group.tfl.status.snapshot.TubeSnapshot;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records every change to a tube line's statuses seen in the snapshot feed, so
+ * that questions such as "how long was the Northern line on Severe Delays
+ * today" can be answered without polling and storing status externally.
+ * Each line has a {@link LineHistory} of {@code tfl.history.max-entries-per-line}
+ * statuses, for at most {@code tfl.history.max-lines} lines, which bounds memory
+ * up front. With {@code tfl.history.spill.enabled} every change is also appended
+ * to a file that is replayed at startup, so history survives a restart. The
+ * file is rewritten with only the retained changes after the replay, and again
+ * whenever it grows to twice the most changes the lines can hold, so it stays
+ * bounded however long the service runs.
+ * A change is timed by the poll that first saw it, so times are accurate to the
+ * poll interval.
+ */
+@Component
+@Slf4j
+public class LineStatusHistory {
+
+    private final TubeSnapshotHolder snapshotHolder;
+    private final int entriesPerLine;
+    private final int maxLines;
+    private final HistorySpill spill;
+    private final ReasonInterner interner = new ReasonInterner();
+    private final Map<String, LineHistory> lines = new ConcurrentHashMap<>();
+    private final Map<String, LineStatusResponse> lastSeen = new HashMap<>();
+    private Disposable subscription;
+
+    public LineStatusHistory(TubeSnapshotHolder snapshotHolder,
+            @Value("${tfl.history.max-entries-per-line:4096}") int entriesPerLine,
+            @Value("${tfl.history.max-lines:64}") int maxLines,
+            @Value("${tfl.history.spill.enabled:false}") boolean spillEnabled,
+            @Value("${tfl.history.spill.path:line-status-history.bin}") Path spillPath) {
+        this.snapshotHolder = snapshotHolder;
+        this.entriesPerLine = entriesPerLine;
+        this.maxLines = maxLines;
+        this.spill = spillEnabled ? new HistorySpill(spillPath) : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        log.info("Recording line status history: {} statuses per line, up to {} KB per line", entriesPerLine,
+                (long) entriesPerLine * LineHistory.BYTES_PER_ENTRY / 1024);
+        if (spill != null) {
+            try {
+                int replayed = spill.replay(record -> {
+                    LineHistory history = history(record.getLineId());
+                    if (history != null) {
+                        history.record(record.getChange().getChangedAtEpochSeconds(),
+                                record.getChange().getStatusesList());
+                    }
+                });
+                log.info("Replayed {} line status changes from {}", replayed, spill.path());
+                compactSpill();
+            } catch (IOException e) {
+                log.warn("Could not replay line status history from {}: {}", spill.path(), e.toString());
+            }
+        }
+        // Recording and spilling are serialised on one worker, off the poller's thread
+        subscription = snapshotHolder.updates()
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(this::record);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    void record(TubeSnapshot snapshot) {
+        long epochSeconds = snapshot.fetchedAt().getEpochSecond();
+        snapshot.lineStatuses().forEach((lineId, response) -> {
+            // Unchanged lines keep the same response instance from one snapshot to the next
+            if (lastSeen.put(lineId, response) == response) {
+                return;
+            }
+            LineHistory history = history(lineId);
+            boolean changed = history != null && history.record(epochSeconds, response.getLine().getStatusesList());
+            if (changed && spill != null) {
+                spill.append(HistoryRecord.newBuilder()
+                        .setLineId(lineId)
+                        .setChange(LineStatusChange.newBuilder()
+                                .setChangedAtEpochSeconds(epochSeconds)
+                                .addAllStatuses(response.getLine().getStatusesList()))
+                        .build());
+            }
+        });
+        if (spill != null) {
+            spill.flush();
+            if (spill.records() > 2L * maxLines * entriesPerLine) {
+                compactSpill();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the spill file with the changes still held, if it has more.
+     */
+    private void compactSpill() {
+        List<HistoryRecord> retained = new ArrayList<>();
+        lines.forEach((lineId, history) -> history.between(Long.MIN_VALUE, Long.MAX_VALUE - 1)
+                .forEach(change -> retained.add(HistoryRecord.newBuilder()
+                        .setLineId(lineId)
+                        .setChange(change)
+                        .build())));
+        if (retained.size() < spill.records()) {
+            log.info("Compacting {} from {} to {} line status changes", spill.path(), spill.records(),
+                    retained.size());
+            spill.rewrite(retained);
+        }
+    }
+
+    /**
+     * @param from ISO-8601 instant, or empty for the oldest recorded change
+     * @param to   ISO-8601 instant, or empty for now
+     */
+    public StatusResult<LineStatusHistoryResponse> query(String lineId, String from, String to) {
+        long fromSeconds = parse("from", from, Long.MIN_VALUE);
+        long toSeconds = parse("to", to, Instant.now().getEpochSecond());
+        if (fromSeconds > toSeconds) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        String line = TubeSnapshot.normalize(lineId.trim());
+        LineStatusHistoryResponse.Builder response = LineStatusHistoryResponse.newBuilder().setLineId(line);
+        LineHistory history = lines.get(line);
+        if (history != null) {
+            response.addAllChanges(history.between(fromSeconds, toSeconds))
+                    .setTruncated(history.truncatedAfter(fromSeconds));
+        }
+        TubeSnapshot snapshot = snapshotHolder.current();
+        return snapshot.isEmpty()
+                ? new StatusResult<>(response.build(), Instant.now(), true)
+                : new StatusResult<>(response.build(), snapshot.fetchedAt(), snapshot.restored());
+    }
+
+    int internedReasons() {
+        return interner.size();
+    }
+
+    private LineHistory history(String lineId) {
+        LineHistory history = lines.get(lineId);
+        if (history == null && lines.size() < maxLines) {
+            history = lines.computeIfAbsent(lineId, id -> new LineHistory(entriesPerLine, interner));
+        }
+        return history;
+    }
+
+    private static long parse(String name, String value, long defaultSeconds) {
+        if (value == null || value.isBlank()) {
+            return defaultSeconds;
+        }
+        try {
+            return Instant.parse(value.trim()).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO-8601 instant, e.g. 2026-10-17T06:00:00Z");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ig.group.tfl.status.history;
+
+import com.ig.group.tfl.status.grpc.StatusInfo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers each distinct status description and reason text once, so a history
+ * entry stores an int instead of the strings. Ids are reference counted by the
+ * entries holding them and reused once the last of those is evicted, so the
+ * table only ever holds text that is still in some line's history.
+ */
+final class ReasonInterner {
+
+    private final Map<StatusInfo, Integer> ids = new HashMap<>();
+    private final List<StatusInfo> reasons = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private int[] references = new int[64];
+
+    /**
+     * @param status a status without severity or validity periods
+     */
+    synchronized int acquire(StatusInfo status) {
+        Integer id = ids.get(status);
+        if (id == null) {
+            id = freeIds.isEmpty() ? reasons.size() : freeIds.pop();
+            if (id == reasons.size()) {
+                reasons.add(status);
+            } else {
+                reasons.set(id, status);
+            }
+            if (id >= references.length) {
+                references = Arrays.copyOf(references, references.length * 2);
+            }
+            ids.put(status, id);
+        }
+        references[id]++;
+        return id;
+    }
+
+    synchronized void release(int id) {
+        if (--references[id] == 0) {
+            ids.remove(reasons.get(id));
+            reasons.set(id, null);
+            freeIds.push(id);
+        }
+    }
+
+    synchronized StatusInfo get(int id) {
+        return reasons.get(id);
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,59 @@
+package com.ig.group.tfl.status.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exports the queue depth and drop counts of every {@link MeteredAsyncAppender}
+ * configured in logback, tagged by appender name.
+ */
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        findAppenders().forEach((name, appender) -> {
+            Gauge.builder("logging.async.queue.depth", appender, MeteredAsyncAppender::getNumberOfElementsInQueue)
+                    .tag("appender", name)
+                    .description("Log events waiting to be written")
+                    .register(registry);
+            Gauge.builder("logging.async.queue.capacity", appender, MeteredAsyncAppender::getQueueSize)
+                    .tag("appender", name)
+                    .description("Log events the queue can hold")
+                    .register(registry);
+            FunctionCounter.builder("logging.async.dropped", appender, MeteredAsyncAppender::discardedCount)
+                    .tags("appender", name, "reason", "discarded")
+                    .description("Log events dropped rather than queued")
+                    .register(registry);
+            FunctionCounter.builder("logging.async.dropped", appender, MeteredAsyncAppender::queueFullCount)
+                    .tags("appender", name, "reason", "queue_full")
+                    .description("Log events dropped rather than queued")
+                    .register(registry);
+        });
+    }
+
+    private static Map<String, MeteredAsyncAppender> findAppenders() {
+        Map<String, MeteredAsyncAppender> appenders = new LinkedHashMap<>();
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            for (Logger logger : context.getLoggerList()) {
+                Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders();
+                while (it.hasNext()) {
+                    if (it.next() instanceof MeteredAsyncAppender appender) {
+                        appenders.putIfAbsent(appender.getName(), appender);
+                    }
+                }
+            }
+        }
+        return appenders;
+    }
+}
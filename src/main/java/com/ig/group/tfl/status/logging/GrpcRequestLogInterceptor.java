@@ -0,0 +1,67 @@
+package com.ig.group.tfl.status.logging;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records every gRPC call in the {@link RequestLog} once it closes or is
+ * cancelled. Runs inside admission control, so calls rejected there are only
+ * counted by its metrics. Status codes that mean the client asked for something
+ * invalid are sampled like successes.
+ */
+public class GrpcRequestLogInterceptor implements ServerInterceptor {
+
+    private static final Set<Status.Code> NOT_FAILURES = EnumSet.of(Status.Code.OK, Status.Code.INVALID_ARGUMENT,
+            Status.Code.NOT_FOUND, Status.Code.RESOURCE_EXHAUSTED, Status.Code.FAILED_PRECONDITION,
+            Status.Code.OUT_OF_RANGE, Status.Code.CANCELLED);
+
+    private final RequestLog requestLog;
+
+    public GrpcRequestLogInterceptor(RequestLog requestLog) {
+        this.requestLog = requestLog;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+            ServerCallHandler<ReqT, RespT> next) {
+        long start = System.nanoTime();
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        boolean streaming = method.getType() != MethodDescriptor.MethodType.UNARY;
+        AtomicBoolean recorded = new AtomicBoolean();
+        Runnable onCancel = () -> {
+            if (recorded.compareAndSet(false, true)) {
+                requestLog.record("gRPC", method.getBareMethodName(), method.getFullMethodName(), "CANCELLED", false,
+                        streaming, System.nanoTime() - start);
+            }
+        };
+        ServerCall<ReqT, RespT> loggedCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (recorded.compareAndSet(false, true)) {
+                    requestLog.record("gRPC", method.getBareMethodName(), method.getFullMethodName(),
+                            status.getCode().name(), !NOT_FAILURES.contains(status.getCode()), streaming,
+                            System.nanoTime() - start);
+                }
+                super.close(status, trailers);
+            }
+        };
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(
+                next.startCall(loggedCall, headers)) {
+            @Override
+            public void onCancel() {
+                onCancel.run();
+                super.onCancel();
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.ig.group.tfl.status.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback's {@link AsyncAppender}, counting the events it drops. With
+ * neverBlock set, a logging call never waits for the queue: INFO and lower
+ * events are discarded once the queue is nearly full (discardingThreshold), and
+ * any event is dropped once it is full. Counts are exported by
+ * {@link AsyncAppenderMetrics}.
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            discarded.increment();
+        }
+        return discardable;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        // The queue's offer is private to the base class, so a full queue is seen
+        // beforehand; under contention the count is approximate
+        if (isNeverBlock() && getRemainingCapacity() == 0
+                && !(isQueueBelowDiscardingThreshold() && super.isDiscardable(event))) {
+            queueFull.increment();
+        }
+        super.append(event);
+    }
+
+    public long discardedCount() {
+        return discarded.sum();
+    }
+
+    public long queueFullCount() {
+        return queueFull.sum();
+    }
+}
@@ -0,0 +1,72 @@
+package com.ig.group.tfl.status.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One log line per completed request, for a sample of requests only. Failed and
+ * slow requests are always logged; others at their endpoint's sample rate
+ * (tfl.request-log.sample-rates), or the default rate. Requests are logged to
+ * the com.ig.group.tfl.status.request logger, so they can be leveled and routed
+ * apart from application logs.
+ */
+public class RequestLog {
+
+    private static final Logger REQUEST_LOGGER = LoggerFactory.getLogger("com.ig.group.tfl.status.request");
+
+    enum Reason {
+        ERROR, SLOW, SAMPLED
+    }
+
+    private final double defaultRate;
+    private final Map<String, Double> endpointRates;
+    private final long slowThresholdNanos;
+
+    public RequestLog(double defaultRate, Map<String, Double> endpointRates, Duration slowThreshold) {
+        this.defaultRate = defaultRate;
+        this.endpointRates = Map.copyOf(endpointRates);
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    /**
+     * @param endpoint  the handler, e.g. getLineStatus or GetLineStatus, which sample rates are keyed by
+     * @param target    what was requested, e.g. the path
+     * @param outcome   the HTTP status or gRPC status code
+     * @param streaming long-lived streams are never logged as slow
+     */
+    public void record(String protocol, String endpoint, String target, String outcome, boolean error,
+            boolean streaming, long durationNanos) {
+        if (!REQUEST_LOGGER.isWarnEnabled()) {
+            return;
+        }
+        Reason reason = decide(endpoint, error, !streaming && durationNanos >= slowThresholdNanos);
+        if (reason == null || (reason == Reason.SAMPLED && !REQUEST_LOGGER.isInfoEnabled())) {
+            return;
+        }
+        String millis = String.format("%.1f", durationNanos / 1e6);
+        if (reason == Reason.SAMPLED) {
+            REQUEST_LOGGER.info("{} {} {} {} {}ms", protocol, endpoint, target, outcome, millis);
+        } else {
+            REQUEST_LOGGER.warn("{} {} {} {} {}ms ({})", protocol, endpoint, target, outcome, millis,
+                    reason == Reason.ERROR ? "failed" : "slow");
+        }
+    }
+
+    Reason decide(String endpoint, boolean error, boolean slow) {
+        if (error) {
+            return Reason.ERROR;
+        }
+        if (slow) {
+            return Reason.SLOW;
+        }
+        double rate = endpointRates.getOrDefault(endpoint, defaultRate);
+        if (rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+            return Reason.SAMPLED;
+        }
+        return null;
+    }
+}
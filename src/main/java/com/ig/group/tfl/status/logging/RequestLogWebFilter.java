@@ -0,0 +1,48 @@
+package com.ig.group.tfl.status.logging;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records every REST exchange in the {@link RequestLog} once it completes. The
+ * endpoint is the handler method name, so sample rates are per endpoint rather
+ * than per path.
+ */
+public class RequestLogWebFilter implements WebFilter {
+
+    private final RequestLog requestLog;
+
+    public RequestLogWebFilter(RequestLog requestLog) {
+        this.requestLog = requestLog;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> record(exchange, signal, System.nanoTime() - start));
+    }
+
+    private void record(ServerWebExchange exchange, SignalType signal, long durationNanos) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        boolean error = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+        String outcome = signal == SignalType.CANCEL ? "cancelled" : status != null ? Integer.toString(status.value())
+                : "-";
+        MediaType contentType = exchange.getResponse().getHeaders().getContentType();
+        boolean streaming = MediaType.TEXT_EVENT_STREAM.isCompatibleWith(contentType);
+        requestLog.record("REST", endpoint(exchange), exchange.getRequest().getMethod() + " "
+                + exchange.getRequest().getPath().value(), outcome, error, streaming, durationNanos);
+    }
+
+    private static String endpoint(ServerWebExchange exchange) {
+        Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        return handler instanceof HandlerMethod method ? method.getMethod().getName() : "other";
+    }
+}
@@ -0,0 +1,24 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Raised when a client has used up its budget; carries when it may retry.
+ */
+@Getter
+public class ClientRateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ClientRateLimitExceededException(RateLimitPolicy policy, Duration retryAfter) {
+        super("You have exceeded the API rate limit of " + policy.limit() + " requests per "
+                + policy.period().toSeconds() + " seconds.");
+        this.retryAfter = retryAfter;
+    }
+
+    public long retryAfterSeconds() {
+        return RateDecision.rejected(retryAfter).retryAfterSeconds();
+    }
+}
@@ -0,0 +1,17 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-client request budget, keyed by whatever identifies the caller (client IP
+ * for REST, peer address for gRPC).
+ */
+public interface ClientRateLimiter {
+
+    Mono<RateDecision> tryAcquire(String clientKey);
+
+    /**
+     * @return the budget, for error messages
+     */
+    RateLimitPolicy policy();
+}
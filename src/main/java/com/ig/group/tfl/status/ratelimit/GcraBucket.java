@@ -0,0 +1,36 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free GCRA bucket. The only state is the theoretical arrival time: when the
+ * client's budget would be fully refilled. A request is admitted if, after adding
+ * one emission interval, that time is no more than one period ahead of now.
+ */
+final class GcraBucket {
+
+    private final long intervalNanos;
+    private final long periodNanos;
+    private final AtomicLong theoreticalArrival;
+
+    GcraBucket(RateLimitPolicy policy, long nowNanos) {
+        this.intervalNanos = policy.emissionIntervalNanos();
+        this.periodNanos = policy.period().toNanos();
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    RateDecision tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long excess = next - nowNanos - periodNanos;
+            if (excess > 0) {
+                return RateDecision.rejected(Duration.ofNanos(excess));
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return RateDecision.ALLOWED;
+            }
+        }
+    }
+}
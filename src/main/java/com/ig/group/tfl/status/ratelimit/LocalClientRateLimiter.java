@@ -0,0 +1,52 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Mono;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Per-replica buckets in a bounded Caffeine table. A bucket idle for a whole
+ * period is full again, so expiring it after that loses nothing; the size cap
+ * bounds memory under an address-spraying client, and Caffeine's frequency-based
+ * admission keeps the buckets of regular clients over one-off keys.
+ */
+public class LocalClientRateLimiter implements ClientRateLimiter {
+
+    private final RateLimitPolicy policy;
+    private final Cache<String, GcraBucket> buckets;
+    private final LongSupplier nanoTime;
+
+    public LocalClientRateLimiter(RateLimitPolicy policy, long maxClients) {
+        this(policy, maxClients, System::nanoTime);
+    }
+
+    LocalClientRateLimiter(RateLimitPolicy policy, long maxClients, LongSupplier nanoTime) {
+        this.policy = policy;
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(policy.period())
+                .build();
+    }
+
+    @Override
+    public Mono<RateDecision> tryAcquire(String clientKey) {
+        return Mono.fromSupplier(() -> acquire(clientKey));
+    }
+
+    RateDecision acquire(String clientKey) {
+        long now = nanoTime.getAsLong();
+        return buckets.get(clientKey, key -> new GcraBucket(policy, now)).tryAcquire(now);
+    }
+
+    @Override
+    public RateLimitPolicy policy() {
+        return policy;
+    }
+
+    long estimatedClients() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,24 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Outcome of asking a client's bucket for one request.
+ *
+ * @param retryAfter how long until the request would have been admitted; zero when allowed
+ */
+public record RateDecision(boolean allowed, Duration retryAfter) {
+
+    public static final RateDecision ALLOWED = new RateDecision(true, Duration.ZERO);
+
+    public static RateDecision rejected(Duration retryAfter) {
+        return new RateDecision(false, retryAfter);
+    }
+
+    /**
+     * Whole seconds, rounded up and at least one, as Retry-After hints require.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * A budget of {@code limit} requests per {@code period}, allowing a burst of up to
+ * the whole budget. Enforced as GCRA (the generic cell rate algorithm), which is
+ * equivalent to a token bucket refilling one token every {@link #emissionInterval()}
+ * but needs only a single timestamp of state per client.
+ */
+public record RateLimitPolicy(int limit, Duration period) {
+
+    public RateLimitPolicy {
+        if (limit <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit must be a positive number of requests per positive period");
+        }
+    }
+
+    public long emissionIntervalNanos() {
+        return period.toNanos() / limit;
+    }
+
+    public Duration emissionInterval() {
+        return Duration.ofNanos(emissionIntervalNanos());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Enforces one budget per client across all replicas. The GCRA update runs as a
+ * Lua script so it is atomic in Redis; each key expires once its bucket is full.
+ * If Redis is slow or unavailable the per-replica limiter decides instead, so a
+ * Redis outage degrades the budget to per-replica rather than rejecting traffic.
+ */
+@Slf4j
+public class RedisClientRateLimiter implements ClientRateLimiter {
+
+    private static final RedisScript<Long> GCRA = RedisScript.of("""
+            local now = tonumber(ARGV[1])
+            local interval = tonumber(ARGV[2])
+            local period = tonumber(ARGV[3])
+            local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+            if tat < now then tat = now end
+            local nextTat = tat + interval
+            local excess = nextTat - now - period
+            if excess > 0 then return excess end
+            redis.call('SET', KEYS[1], nextTat, 'PX', nextTat - now)
+            return 0
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration timeout;
+    private final LocalClientRateLimiter fallback;
+
+    public RedisClientRateLimiter(ReactiveStringRedisTemplate redisTemplate, String keyPrefix, Duration timeout,
+            LocalClientRateLimiter fallback) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.timeout = timeout;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Mono<RateDecision> tryAcquire(String clientKey) {
+        RateLimitPolicy policy = fallback.policy();
+        // Millisecond resolution; replica clocks are assumed NTP-synchronised
+        List<String> args = List.of(Long.toString(System.currentTimeMillis()),
+                Long.toString(Math.max(1, policy.emissionInterval().toMillis())),
+                Long.toString(policy.period().toMillis()));
+        return redisTemplate.execute(GCRA, List.of(keyPrefix + ":rate-limit:" + clientKey), args)
+                .next()
+                .timeout(timeout)
+                .map(excessMillis -> excessMillis > 0
+                        ? RateDecision.rejected(Duration.ofMillis(excessMillis))
+                        : RateDecision.ALLOWED)
+                .onErrorResume(e -> {
+                    log.debug("Redis rate limit check failed for {}, using local bucket: {}", clientKey,
+                            e.getMessage());
+                    return fallback.tryAcquire(clientKey);
+                });
+    }
+
+    @Override
+    public RateLimitPolicy policy() {
+        return fallback.policy();
+    }
+}
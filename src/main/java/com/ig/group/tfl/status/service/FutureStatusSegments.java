@@ -0,0 +1,129 @@
+package com.ig.group.tfl.status.service;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.grpc.ValidityPeriod;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits future line status into one segment per line per day, so overlapping
+ * date ranges share cached days, and joins segments back into one range.
+ * Days are London calendar days, the timezone TfL validity periods refer to.
+ */
+final class FutureStatusSegments {
+
+    static final ZoneId LONDON = ZoneId.of("Europe/London");
+    static final int MAX_RANGE_DAYS = 31;
+
+    private FutureStatusSegments() {
+    }
+
+    /**
+     * @return every day from start to end inclusive
+     * @throws IllegalArgumentException if either date is not YYYY-MM-DD, the range is
+     *                                  reversed, or it spans more than {@link #MAX_RANGE_DAYS} days
+     */
+    static List<LocalDate> days(String startDate, String endDate) {
+        LocalDate start = parseDate("startDate", startDate);
+        LocalDate end = parseDate("endDate", endDate);
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("endDate " + end + " is before startDate " + start);
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date ranges are limited to " + MAX_RANGE_DAYS + " days");
+        }
+        return start.datesUntil(end.plusDays(1)).toList();
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new IllegalArgumentException(name + " must be a date in YYYY-MM-DD format, got '" + value + "'");
+        }
+    }
+
+    /**
+     * Assigns each status of a range response to the days its validity periods
+     * overlap. A status without parseable validity periods applies to every day.
+     */
+    static Map<LocalDate, LineInfo> splitByDay(LineInfo line, LocalDate start, LocalDate end) {
+        Map<LocalDate, LineInfo.Builder> byDay = new LinkedHashMap<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            byDay.put(day, line.toBuilder().clearStatuses());
+        }
+        for (StatusInfo status : line.getStatusesList()) {
+            for (Map.Entry<LocalDate, LineInfo.Builder> day : byDay.entrySet()) {
+                if (appliesTo(status, day.getKey())) {
+                    day.getValue().addStatuses(status);
+                }
+            }
+        }
+        Map<LocalDate, LineInfo> segments = new LinkedHashMap<>();
+        byDay.forEach((day, builder) -> segments.put(day, builder.build()));
+        return segments;
+    }
+
+    /**
+     * Joins day segments in order. A status spanning several days appears in each
+     * of their segments and is kept once.
+     */
+    static LineInfo merge(List<LineInfo> segments) {
+        if (segments.isEmpty()) {
+            return LineInfo.getDefaultInstance();
+        }
+        Set<StatusInfo> statuses = new LinkedHashSet<>();
+        segments.forEach(segment -> statuses.addAll(segment.getStatusesList()));
+        return segments.get(0).toBuilder().clearStatuses().addAllStatuses(statuses).build();
+    }
+
+    private static boolean appliesTo(StatusInfo status, LocalDate day) {
+        if (status.getValidityPeriodsCount() == 0) {
+            return true;
+        }
+        Instant dayStart = day.atStartOfDay(LONDON).toInstant();
+        Instant dayEnd = day.plusDays(1).atStartOfDay(LONDON).toInstant();
+        for (ValidityPeriod period : status.getValidityPeriodsList()) {
+            Instant from = parseInstant(period.getFromDate());
+            Instant to = parseInstant(period.getToDate());
+            if (from == null || to == null) {
+                return true;
+            }
+            if (from.isBefore(dayEnd) && to.isAfter(dayStart)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * TfL timestamps are usually UTC with a Z suffix; ones without an offset are
+     * read as London time.
+     */
+    private static Instant parseInstant(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value).atZone(LONDON).toInstant();
+            } catch (DateTimeException ignored) {
+                return null;
+            }
+        }
+    }
+}
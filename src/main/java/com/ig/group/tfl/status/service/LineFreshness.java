@@ -0,0 +1,100 @@
+package com.ig.group.tfl.status.service;
+
+import com.ig.group.tfl.status.snapshot.TubeSnapshot;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seconds since each line's data was last refreshed from TfL, exported as
+ * tfl.line.data.age{line}: the newer of the current snapshot's fetch time (for
+ * tube lines) and the last successful on-demand fetch of the line. A line is only
+ * tracked once TfL has returned it, so made-up ids never create a series, and at
+ * most {@code tfl.metrics.freshness.max-lines} lines are tracked.
+ */
+@Component
+@Slf4j
+public class LineFreshness {
+
+    static final String METRIC_NAME = "tfl.line.data.age";
+
+    private final TubeSnapshotHolder snapshotHolder;
+    private final MeterRegistry meterRegistry;
+    private final int maxLines;
+    // Epoch millis of the last on-demand fetch per line, 0 if only ever seen in a snapshot
+    private final Map<String, AtomicLong> fetchedAt = new ConcurrentHashMap<>();
+    private Disposable subscription;
+
+    public LineFreshness(TubeSnapshotHolder snapshotHolder, MeterRegistry meterRegistry,
+            @Value("${tfl.metrics.freshness.max-lines:64}") int maxLines) {
+        this.snapshotHolder = snapshotHolder;
+        this.meterRegistry = meterRegistry;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Snapshots only need their lines registered; the gauges read the current
+     * snapshot, so a poll that changes nothing still counts as a refresh.
+     */
+    @PostConstruct
+    public void start() {
+        subscription = snapshotHolder.updates()
+                .subscribe(snapshot -> snapshot.lineStatuses().keySet().forEach(this::track));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    public void refreshed(String lineId, Instant at) {
+        if (lineId.isBlank()) {
+            return;
+        }
+        AtomicLong last = track(TubeSnapshot.normalize(lineId));
+        if (last != null) {
+            last.accumulateAndGet(at.toEpochMilli(), Math::max);
+        }
+    }
+
+    private AtomicLong track(String lineId) {
+        AtomicLong last = fetchedAt.get(lineId);
+        if (last != null || fetchedAt.size() >= maxLines) {
+            return last;
+        }
+        return fetchedAt.computeIfAbsent(lineId, id -> {
+            AtomicLong created = new AtomicLong();
+            Gauge.builder(METRIC_NAME, created, fetched -> ageSeconds(id, fetched.get()))
+                    .tag("line", id)
+                    .baseUnit("seconds")
+                    .description("Time since the line's status was last fetched from TfL")
+                    .register(meterRegistry);
+            if (fetchedAt.size() + 1 == maxLines) {
+                log.warn("Tracking data age for {} lines, the most allowed; further lines are not tracked", maxLines);
+            }
+            return created;
+        });
+    }
+
+    private double ageSeconds(String lineId, long fetchedMillis) {
+        long latest = fetchedMillis;
+        TubeSnapshot snapshot = snapshotHolder.current();
+        if (snapshot.lineStatus(lineId) != null) {
+            latest = Math.max(latest, snapshot.fetchedAt().toEpochMilli());
+        }
+        return latest == 0 ? Double.NaN : (System.currentTimeMillis() - latest) / 1000.0;
+    }
+}
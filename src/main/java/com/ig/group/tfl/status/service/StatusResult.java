@@ -0,0 +1,21 @@
+package com.ig.group.tfl.status.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * A response together with when its data was fetched from TfL and whether it is
+ * being served past its TTL (stale-while-revalidate or TfL unavailable).
+ */
+public record StatusResult<T>(T value, Instant fetchedAt, boolean stale) {
+
+    public Duration age(Instant now) {
+        Duration age = Duration.between(fetchedAt, now);
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+
+    public <R> StatusResult<R> map(Function<T, R> mapper) {
+        return new StatusResult<>(mapper.apply(value), fetchedAt, stale);
+    }
+}
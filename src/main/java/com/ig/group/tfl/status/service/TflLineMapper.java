@@ -0,0 +1,26 @@
+package com.ig.group.tfl.status.service;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+
+import java.util.List;
+
+/**
+ * Helpers over TfL line status, already decoded into the protobuf model shared
+ * by the REST and gRPC APIs.
+ */
+public final class TflLineMapper {
+
+    // Stands in for a line when TfL returns none; never a real line id
+    static final String UNKNOWN_LINE_ID = "unknown";
+
+    private TflLineMapper() {
+    }
+
+    public static LineInfo toFirstLineInfo(List<LineInfo> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return LineInfo.newBuilder().setId(UNKNOWN_LINE_ID).setName("Unknown").build();
+        }
+        // Often one line is returned, take the first
+        return lines.get(0);
+    }
+}
@@ -1,137 +1,359 @@
 package com.ig.group.tfl.status.service;
 
+import com.ig.group.tfl.status.cache.ReactiveValueCache;
+import com.ig.group.tfl.status.cache.Timestamped;
+import com.ig.group.tfl.status.client.AdaptiveConcurrencyLimiter;
+import com.ig.group.tfl.status.client.RequestHedger;
+import com.ig.group.tfl.status.client.SingleFlight;
 import com.ig.group.tfl.status.client.TflApiClient;
-import com.ig.group.tfl.status.dto.TflLineDto;
-import com.ig.group.tfl.status.dto.TflLineStatusDto;
-import com.ig.group.tfl.status.dto.TflValidityPeriodDto;
 import com.ig.group.tfl.status.grpc.*;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
-import lombok.RequiredArgsConstructor;
+import com.ig.group.tfl.status.severity.SeverityClassifier;
+import com.ig.group.tfl.status.snapshot.TubeSnapshot;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TflStatusService {
 
+    public static final int MAX_BATCH_LINES = 25;
+    private static final String UNPLANNED_KEY = "tube";
+    private static final int BATCH_FALLBACK_CONCURRENCY = 4;
+
     private final TflApiClient tflApiClient;
+    private final SingleFlight singleFlight;
+    private final RequestHedger hedger;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ReactiveValueCache<String, LineStatusResponse> lineStatusCache;
+    private final ReactiveValueCache<String, FutureLineStatusResponse> futureStatusCache;
+    private final ReactiveValueCache<String, UnplannedDisruptionsResponse> unplannedDisruptionsCache;
+    private final TubeSnapshotHolder snapshotHolder;
+    private final LineFreshness lineFreshness;
+    private final SeverityClassifier severityClassifier;
+    private final Duration ttl;
+    private final Duration maxStaleness;
+    private final CircuitBreaker circuitBreaker;
+    private final Retry retry;
 
-    private static final String CACHE_NAME_LINE_STATUS = "lineStatus";
-    private static final String CACHE_NAME_FUTURE_STATUS = "futureStatus";
-    private static final String CACHE_NAME_UNPLANNED = "unplannedDisruptions";
+    public TflStatusService(TflApiClient tflApiClient,
+            SingleFlight singleFlight,
+            RequestHedger hedger,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            ReactiveValueCache<String, LineStatusResponse> lineStatusCache,
+            ReactiveValueCache<String, FutureLineStatusResponse> futureStatusCache,
+            ReactiveValueCache<String, UnplannedDisruptionsResponse> unplannedDisruptionsCache,
+            TubeSnapshotHolder snapshotHolder,
+            LineFreshness lineFreshness,
+            SeverityClassifier severityClassifier,
+            @Value("${tfl.cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${tfl.cache.max-staleness:5m}") Duration maxStaleness,
+            CircuitBreakerRegistry circuitBreakerRegistry,
+            RetryRegistry retryRegistry) {
+        this.tflApiClient = tflApiClient;
+        this.singleFlight = singleFlight;
+        this.hedger = hedger;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.lineStatusCache = lineStatusCache;
+        this.futureStatusCache = futureStatusCache;
+        this.unplannedDisruptionsCache = unplannedDisruptionsCache;
+        this.snapshotHolder = snapshotHolder;
+        this.lineFreshness = lineFreshness;
+        this.severityClassifier = severityClassifier;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxStaleness = maxStaleness;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("tflApi");
+        this.retry = retryRegistry.retry("tflApi");
+    }
 
-    @Cacheable(value = CACHE_NAME_LINE_STATUS, key = "#lineId")
-    @CircuitBreaker(name = "tflApi")
-    @Retry(name = "tflApi")
-    public Mono<LineStatusResponse> getLineStatus(String lineId) {
-        return tflApiClient.getLineStatus(lineId)
-                .collectList()
-                .map(this::mapTflResponseToLineInfo)
-                .map(lineInfo -> LineStatusResponse.newBuilder().setLine(lineInfo).build());
+    /**
+     * Tube lines are answered from the polled snapshot; other lines (or any line
+     * while no usable snapshot exists) fall back to the cached on-demand fetch.
+     * Ids are normalised first, so "Central" and "central " share one cache entry
+     * and one TfL request.
+     */
+    public Mono<StatusResult<LineStatusResponse>> getLineStatus(String lineId) {
+        String line = TubeSnapshot.normalize(lineId.trim());
+        TubeSnapshot snapshot = usableSnapshot();
+        if (snapshot != null) {
+            LineStatusResponse response = snapshot.lineStatus(line);
+            if (response != null) {
+                return Mono.just(fromSnapshot(snapshot, response));
+            }
+        }
+        return lineStatusCache.get(line, this::fetchLineStatus)
+                .map(entry -> fromCache(lineStatusCache, entry));
     }
 
-    @Cacheable(value = CACHE_NAME_FUTURE_STATUS, key = "{#lineId, #startDate, #endDate}")
-    @CircuitBreaker(name = "tflApi")
-    @Retry(name = "tflApi")
-    public Mono<FutureLineStatusResponse> getFutureLineStatus(String lineId, String startDate, String endDate) {
-        return tflApiClient.getLineStatusWithDateRange(lineId, startDate, endDate)
+    /**
+     * Status of several lines in one response. Duplicate ids are resolved once,
+     * snapshot and cache hits are served directly, and the remaining lines share
+     * one multi-line TfL request. The result is as old as its oldest line.
+     *
+     * @throws IllegalArgumentException if no ids, or more than {@link #MAX_BATCH_LINES}, are given
+     */
+    public Mono<StatusResult<LineStatusesResponse>> getLineStatuses(List<String> lineIds) {
+        Set<String> distinct = lineIds.stream()
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(TubeSnapshot::normalize)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinct.isEmpty() || distinct.size() > MAX_BATCH_LINES) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BATCH_LINES + " line ids are required");
+        }
+
+        TubeSnapshot snapshot = usableSnapshot();
+        List<String> misses = distinct.stream()
+                .filter(id -> snapshot == null || snapshot.lineStatus(id) == null)
+                .toList();
+        // Only subscribed if a line misses the in-process cache, and then only once
+        Mono<Map<String, LineStatusResponse>> batch = fetchLineStatuses(misses).cache();
+
+        return Flux.fromIterable(distinct)
+                .flatMapSequential(lineId -> {
+                    LineStatusResponse fromSnapshot = snapshot == null ? null : snapshot.lineStatus(lineId);
+                    if (fromSnapshot != null) {
+                        return Mono.just(fromSnapshot(snapshot, fromSnapshot));
+                    }
+                    return lineStatusCache.get(lineId, id -> batch
+                            .flatMap(found -> Mono.justOrEmpty(found.get(id)))
+                            .switchIfEmpty(Mono.defer(() -> fetchLineStatus(id))))
+                            .map(entry -> fromCache(lineStatusCache, entry));
+                }, BATCH_FALLBACK_CONCURRENCY)
                 .collectList()
-                .map(this::mapTflResponseToLineInfo)
-                .map(lineInfo -> FutureLineStatusResponse.newBuilder().setLine(lineInfo).build());
+                .map(TflStatusService::combine);
+    }
+
+    private static StatusResult<LineStatusesResponse> combine(List<StatusResult<LineStatusResponse>> results) {
+        return combine(results, LineStatusesResponse.newBuilder()
+                .addAllLines(results.stream().map(result -> result.value().getLine()).toList())
+                .build());
+    }
+
+    /**
+     * A response assembled from several entries is as old as the oldest of them.
+     */
+    private static <T> StatusResult<T> combine(List<? extends StatusResult<?>> results, T response) {
+        Instant oldest = results.stream().map(StatusResult::fetchedAt).min(Comparator.naturalOrder())
+                .orElseGet(Instant::now);
+        boolean stale = results.stream().anyMatch(StatusResult::stale);
+        return new StatusResult<>(response, oldest, stale);
     }
 
-    @Cacheable(value = CACHE_NAME_UNPLANNED)
-    @CircuitBreaker(name = "tflApi")
-    @Retry(name = "tflApi")
-    public Mono<UnplannedDisruptionsResponse> getUnplannedDisruptions() {
-        return tflApiClient.getAllTubeLineStatuses()
-                .filter(this::hasUnplannedDisruption)
-                .map(this::mapSingleLineDtoToLineInfo)
+    /**
+     * Future status is cached per line per day, so overlapping ranges share days
+     * and only days missing from this replica's cache, or stale in it, are fetched,
+     * one TfL request per run of consecutive such days. The result is as old as its oldest day.
+     *
+     * @throws IllegalArgumentException if the dates are invalid or reversed
+     */
+    public Mono<StatusResult<FutureLineStatusResponse>> getFutureLineStatus(String lineId, String startDate,
+            String endDate) {
+        List<LocalDate> days = FutureStatusSegments.days(startDate, endDate);
+        String line = TubeSnapshot.normalize(lineId.trim());
+        Map<LocalDate, Mono<Map<LocalDate, FutureLineStatusResponse>>> fetches = planSegmentFetches(line, days);
+
+        return Flux.fromIterable(days)
+                .flatMapSequential(day -> futureStatusCache
+                        .get(segmentKey(line, day), key -> fetches.get(day).mapNotNull(segments -> segments.get(day)))
+                        .map(entry -> fromCache(futureStatusCache, entry)))
                 .collectList()
-                .map(lines -> UnplannedDisruptionsResponse.newBuilder().addAllAffectedLines(lines).build());
+                .map(results -> {
+                    LineInfo merged = FutureStatusSegments.merge(results.stream()
+                            .map(result -> result.value().getLine())
+                            .toList());
+                    return combine(results, FutureLineStatusResponse.newBuilder().setLine(merged).build());
+                });
     }
 
     /**
-     * Requirement 3 logic: Exclude planned engineering works.
-     * Often 'statusSeverity' < 10 but != 0 (special/planned closures).
-     * In TfL API:
-     * 10 = Good Service
-     * 11 = Planned Closure
-     * 12 = Part Closure
-     * 13 = Planned Part Closure
-     * 14 = Part Suspended (can be unplanned)
-     * 6 = Severe Delays
-     * 9 = Minor Delays
-     * We look for statuses that aren't "Good Service" (10) and aren't strictly
-     * "Planned"
+     * Groups the days this replica does not hold fresh into runs of consecutive
+     * days, each fetched with one shared request, whether on a miss or by a stale
+     * day's background refresh. Fresh days get a single-day fetch, only used if
+     * the entry is evicted or goes stale before it is read.
      */
-    private boolean hasUnplannedDisruption(TflLineDto dto) {
-        if (dto.getLineStatuses() == null || dto.getLineStatuses().isEmpty()) {
-            return false;
+    private Map<LocalDate, Mono<Map<LocalDate, FutureLineStatusResponse>>> planSegmentFetches(String line,
+            List<LocalDate> days) {
+        Map<LocalDate, Mono<Map<LocalDate, FutureLineStatusResponse>>> fetches = new HashMap<>();
+        List<LocalDate> run = new ArrayList<>();
+        for (LocalDate day : days) {
+            if (futureStatusCache.isFresh(segmentKey(line, day))) {
+                planRun(line, run, fetches);
+                fetches.put(day, fetchFutureSegments(line, day, day));
+            } else {
+                run.add(day);
+            }
         }
+        planRun(line, run, fetches);
+        return fetches;
+    }
 
-        return dto.getLineStatuses().stream().anyMatch(status -> {
-            int severity = status.getStatusSeverity();
-            // Assuming 10 is Good Service, and 11, 12, 13 are variations of planned
-            // closures.
-            // SRE implementation note: Real TfL status parsing can be complex,
-            // we filter out Good Service and typical planned strings.
-            boolean isNotGoodService = severity != 10;
-            boolean isNotPlanned = severity != 11 && severity != 13;
-
-            String desc = status.getStatusSeverityDescription();
-            if (desc != null && desc.toLowerCase().contains("planned")) {
-                isNotPlanned = false;
-            }
+    private void planRun(String line, List<LocalDate> run,
+            Map<LocalDate, Mono<Map<LocalDate, FutureLineStatusResponse>>> fetches) {
+        if (run.isEmpty()) {
+            return;
+        }
+        Mono<Map<LocalDate, FutureLineStatusResponse>> shared = fetchFutureSegments(line, run.get(0),
+                run.get(run.size() - 1)).cache();
+        run.forEach(day -> fetches.put(day, shared));
+        run.clear();
+    }
 
-            return isNotGoodService && isNotPlanned;
-        });
+    private static String segmentKey(String line, LocalDate day) {
+        return line + ":" + day;
     }
 
-    private LineInfo mapTflResponseToLineInfo(List<TflLineDto> dtos) {
-        if (dtos == null || dtos.isEmpty()) {
-            return LineInfo.newBuilder().setId("unknown").setName("Unknown").build();
+    public Mono<StatusResult<UnplannedDisruptionsResponse>> getUnplannedDisruptions() {
+        TubeSnapshot snapshot = usableSnapshot();
+        if (snapshot != null) {
+            return Mono.just(fromSnapshot(snapshot, snapshot.unplannedDisruptions()));
         }
-        // Often one line is returned, take the first
-        return mapSingleLineDtoToLineInfo(dtos.get(0));
-    }
-
-    private LineInfo mapSingleLineDtoToLineInfo(TflLineDto dto) {
-        LineInfo.Builder builder = LineInfo.newBuilder()
-                .setId(dto.getId() != null ? dto.getId() : "")
-                .setName(dto.getName() != null ? dto.getName() : "");
-
-        if (dto.getLineStatuses() != null) {
-            for (TflLineStatusDto statusDto : dto.getLineStatuses()) {
-                StatusInfo.Builder statusBuilder = StatusInfo.newBuilder()
-                        .setStatusSeverity(statusDto.getStatusSeverity() != null ? statusDto.getStatusSeverity() : 0)
-                        .setStatusSeverityDescription(statusDto.getStatusSeverityDescription() != null
-                                ? statusDto.getStatusSeverityDescription()
-                                : "");
-
-                if (statusDto.getReason() != null) {
-                    statusBuilder.setReason(statusDto.getReason());
-                }
-
-                if (statusDto.getValidityPeriods() != null) {
-                    for (TflValidityPeriodDto vpDto : statusDto.getValidityPeriods()) {
-                        ValidityPeriod.Builder vpBuilder = ValidityPeriod.newBuilder()
-                                .setFromDate(vpDto.getFromDate() != null ? vpDto.getFromDate() : "")
-                                .setToDate(vpDto.getToDate() != null ? vpDto.getToDate() : "")
-                                .setIsNow(vpDto.getIsNow() != null ? vpDto.getIsNow() : false);
-                        statusBuilder.addValidityPeriods(vpBuilder.build());
-                    }
-                }
-                builder.addStatuses(statusBuilder.build());
-            }
+        return unplannedDisruptionsCache.get(UNPLANNED_KEY, k -> fetchUnplannedDisruptions())
+                .map(entry -> fromCache(unplannedDisruptionsCache, entry));
+    }
+
+    /**
+     * A snapshot is served until it reaches the max staleness; past the TTL it is
+     * flagged stale, which only happens while the poller cannot reach TfL. A
+     * snapshot restored at startup is always flagged stale, and is served until
+     * the first successful poll whatever its age, so a restart while TfL is down
+     * still has something to serve.
+     */
+    private TubeSnapshot usableSnapshot() {
+        TubeSnapshot snapshot = snapshotHolder.current();
+        if (snapshot.isEmpty()
+                || (!snapshot.restored() && snapshot.age(Instant.now()).compareTo(maxStaleness) > 0)) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    private <T> StatusResult<T> fromSnapshot(TubeSnapshot snapshot, T value) {
+        boolean stale = snapshot.restored() || snapshot.age(Instant.now()).compareTo(ttl) > 0;
+        return new StatusResult<>(value, snapshot.fetchedAt(), stale);
+    }
+
+    private static <T> StatusResult<T> fromCache(ReactiveValueCache<String, T> cache, Timestamped<T> entry) {
+        return new StatusResult<>(entry.value(), entry.fetchedAt(), cache.isStale(entry));
+    }
+
+    /**
+     * Fetches every tube line from TfL. Shared by the snapshot poller and the
+     * on-demand unplanned disruptions path, so concurrent callers coalesce into
+     * one /Line/Mode/tube/Status request.
+     */
+    public Mono<List<LineInfo>> fetchAllTubeLines() {
+        return singleFlight.execute("allTube", "tube", () -> hedger
+                .execute("allTube", () -> upstream(tflApiClient.getAllTubeLineStatuses()))
+                .transformDeferred(this::withResilience)
+                .doOnNext(lines -> lines.forEach(this::refreshed)));
+    }
+
+    private Mono<LineStatusResponse> fetchLineStatus(String lineId) {
+        return singleFlight.execute("lineStatus", lineId, () -> hedger
+                .execute("lineStatus", () -> upstream(tflApiClient.getLineStatus(lineId)))
+                .map(TflLineMapper::toFirstLineInfo)
+                .map(lineInfo -> LineStatusResponse.newBuilder().setLine(lineInfo).build())
+                .transformDeferred(this::withResilience)
+                .doOnNext(response -> refreshed(response.getLine())));
+    }
+
+    /**
+     * One TfL request for several lines. If TfL rejects the combined request (an
+     * unknown id fails the whole call) the lines are fetched individually instead.
+     */
+    private Mono<Map<String, LineStatusResponse>> fetchLineStatuses(List<String> lineIds) {
+        return singleFlight.execute("lineStatuses", String.join(",", lineIds), () -> upstream(tflApiClient
+                .getLineStatuses(lineIds))
+                .onErrorResume(TflStatusService::isClientError, e -> Mono.just(List.of()))
+                .flatMapIterable(lines -> lines)
+                .doOnNext(this::refreshed)
+                .collectMap(line -> TubeSnapshot.normalize(line.getId()),
+                        line -> LineStatusResponse.newBuilder().setLine(line).build())
+                .transformDeferred(this::withResilience));
+    }
+
+    private Mono<Map<LocalDate, FutureLineStatusResponse>> fetchFutureSegments(String lineId, LocalDate start,
+            LocalDate end) {
+        String key = lineId + ":" + start + ":" + end;
+        return singleFlight.execute("futureStatus", key, () -> upstream(tflApiClient
+                .getLineStatusWithDateRange(lineId, start.toString(), end.toString()))
+                .map(TflLineMapper::toFirstLineInfo)
+                .map(lineInfo -> {
+                    Map<LocalDate, FutureLineStatusResponse> segments = new LinkedHashMap<>();
+                    FutureStatusSegments.splitByDay(lineInfo, start, end).forEach((day, segment) -> segments
+                            .put(day, FutureLineStatusResponse.newBuilder().setLine(segment).build()));
+                    return segments;
+                })
+                .transformDeferred(this::withResilience));
+    }
+
+    private Mono<UnplannedDisruptionsResponse> fetchUnplannedDisruptions() {
+        return fetchAllTubeLines()
+                .map(lines -> UnplannedDisruptionsResponse.newBuilder()
+                        .addAllAffectedLines(lines.stream().filter(severityClassifier::hasUnplannedDisruption).toList())
+                        .build());
+    }
+
+    private void refreshed(LineInfo line) {
+        if (TflLineMapper.UNKNOWN_LINE_ID.equals(line.getId())) {
+            return;
         }
-        return builder.build();
+        lineFreshness.refreshed(line.getId(), Instant.now());
+    }
+
+    /**
+     * Each TfL request holds a slot of the adaptive concurrency limit until its
+     * whole body has been read.
+     */
+    private Mono<List<LineInfo>> upstream(Flux<LineInfo> request) {
+        return concurrencyLimiter.execute(request::collectList);
+    }
+
+    /**
+     * Circuit breaker and retry wrap only the upstream call, so cache hits are
+     * neither counted by the breaker nor rejected while it is open. A hedged call
+     * counts once, however many attempts it sent.
+     * Retry is the outer operator, matching the previous annotation order.
+     * A 4xx is TfL answering, not failing, so it passes both as a signal: it is
+     * neither retried nor recorded by the breaker.
+     */
+    private <T> Mono<T> withResilience(Mono<T> upstream) {
+        return upstream
+                .materialize()
+                .flatMap(signal -> signal.isOnError() && !isClientError(signal.getThrowable())
+                        ? Mono.<Signal<T>>error(signal.getThrowable())
+                        : Mono.just(signal))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .transformDeferred(RetryOperator.of(retry))
+                .dematerialize();
+    }
+
+    private static boolean isClientError(Throwable error) {
+        return error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
     }
 }
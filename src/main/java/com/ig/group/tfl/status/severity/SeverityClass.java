@@ -0,0 +1,11 @@
+package com.ig.group.tfl.status.severity;
+
+/**
+ * What a TfL line status means for a traveller. Requirement 3 reports only
+ * {@link #UNPLANNED} disruptions.
+ */
+public enum SeverityClass {
+    GOOD,
+    PLANNED,
+    UNPLANNED
+}
@@ -0,0 +1,27 @@
+package com.ig.group.tfl.status.severity;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+
+/**
+ * Classifies TfL statuses. Called once per changed line as data arrives, never
+ * on the read path, so implementations may be replaced (by declaring another
+ * bean) without affecting request latency.
+ */
+public interface SeverityClassifier {
+
+    SeverityClass classify(int statusSeverity, String statusSeverityDescription);
+
+    default SeverityClass classify(StatusInfo status) {
+        return classify(status.getStatusSeverity(), status.getStatusSeverityDescription());
+    }
+
+    default boolean hasUnplannedDisruption(LineInfo line) {
+        for (int i = 0; i < line.getStatusesCount(); i++) {
+            if (classify(line.getStatuses(i)) == SeverityClass.UNPLANNED) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
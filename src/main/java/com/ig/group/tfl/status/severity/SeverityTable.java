@@ -0,0 +1,84 @@
+package com.ig.group.tfl.status.severity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table-driven classifier. Severity codes map to a class through an array
+ * indexed by code; codes not listed as good or planned are unplanned unless
+ * their description names planned work. Descriptions are only inspected for
+ * those codes, and the result for each (code, description) pair is memoized,
+ * as TfL uses a small fixed set of descriptions.
+ */
+public final class SeverityTable implements SeverityClassifier {
+
+    private static final int MAX_CODE = 63;
+    private static final int MAX_MEMOIZED_PER_CODE = 64;
+
+    private final SeverityClass[] byCode = new SeverityClass[MAX_CODE + 1];
+    private final List<String> plannedKeywords;
+    private final List<Map<String, SeverityClass>> memoizedByCode = new ArrayList<>(MAX_CODE + 1);
+
+    public SeverityTable(Set<Integer> goodCodes, Set<Integer> plannedCodes, List<String> plannedKeywords) {
+        Arrays.fill(byCode, SeverityClass.UNPLANNED);
+        for (int code = 0; code <= MAX_CODE; code++) {
+            memoizedByCode.add(new ConcurrentHashMap<>());
+        }
+        plannedCodes.forEach(code -> byCode[checkCode(code)] = SeverityClass.PLANNED);
+        goodCodes.forEach(code -> byCode[checkCode(code)] = SeverityClass.GOOD);
+        this.plannedKeywords = plannedKeywords.stream().map(keyword -> keyword.toLowerCase(Locale.ROOT)).toList();
+    }
+
+    /**
+     * 10 is Good Service. 11 and 13 are treated as planned closures, as is any
+     * status described as planned (e.g. "Planned Closure"); everything else,
+     * such as 6 Severe Delays or 9 Minor Delays, is unplanned.
+     */
+    public static SeverityTable defaults() {
+        return new SeverityTable(Set.of(10), Set.of(11, 13), List.of("planned"));
+    }
+
+    private static int checkCode(int code) {
+        if (code < 0 || code > MAX_CODE) {
+            throw new IllegalArgumentException("Severity code " + code + " is outside 0.." + MAX_CODE);
+        }
+        return code;
+    }
+
+    @Override
+    public SeverityClass classify(int statusSeverity, String statusSeverityDescription) {
+        if (statusSeverity < 0 || statusSeverity > MAX_CODE) {
+            return byDescription(statusSeverityDescription);
+        }
+        SeverityClass byTable = byCode[statusSeverity];
+        if (byTable != SeverityClass.UNPLANNED || plannedKeywords.isEmpty()) {
+            return byTable;
+        }
+        // Keyed by code, then description, so a lookup allocates nothing
+        Map<String, SeverityClass> memoized = memoizedByCode.get(statusSeverity);
+        SeverityClass known = memoized.get(statusSeverityDescription);
+        if (known != null) {
+            return known;
+        }
+        SeverityClass classified = byDescription(statusSeverityDescription);
+        if (memoized.size() < MAX_MEMOIZED_PER_CODE) {
+            memoized.putIfAbsent(statusSeverityDescription, classified);
+        }
+        return classified;
+    }
+
+    private SeverityClass byDescription(String description) {
+        String lower = description.toLowerCase(Locale.ROOT);
+        for (String keyword : plannedKeywords) {
+            if (lower.contains(keyword)) {
+                return SeverityClass.PLANNED;
+            }
+        }
+        return SeverityClass.UNPLANNED;
+    }
+}
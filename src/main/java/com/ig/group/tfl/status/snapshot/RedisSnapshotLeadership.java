@@ -0,0 +1,242 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Elects one snapshot leader among the replicas with a lease in Redis. Every
+ * replica tries to take or renew the lease three times per lease period; the
+ * holder polls TfL and the rest follow the snapshots it shares, so a dead leader
+ * is replaced within one lease period of its last renewal.
+ * Each acquisition increments a fencing token, and a shared snapshot is only
+ * accepted from a token at least as new as the one that wrote the current copy.
+ * A leader that stalls past its lease and resumes therefore cannot overwrite its
+ * successor's data; it also stops acting as leader as soon as its lease, timed
+ * from before the renewal was sent, may have run out.
+ * <p>
+ * If Redis has not answered a renewal for a whole lease period no replica can
+ * be elected, so each one falls back to polling TfL itself, without sharing,
+ * until Redis answers again.
+ */
+@Slf4j
+public class RedisSnapshotLeadership implements SnapshotLeadership {
+
+    private static final RedisScript<Long> ACQUIRE = RedisScript.of("""
+            local holder = redis.call('GET', KEYS[1])
+            if holder then
+              local separator = string.find(holder, ':', 1, true)
+              if string.sub(holder, 1, separator - 1) ~= ARGV[1] then return 0 end
+              redis.call('PEXPIRE', KEYS[1], ARGV[2])
+              return tonumber(string.sub(holder, separator + 1))
+            end
+            local token = redis.call('INCR', KEYS[2])
+            redis.call('SET', KEYS[1], ARGV[1] .. ':' .. token, 'PX', ARGV[2])
+            return token
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> SHARE = RedisScript.of("""
+            local token = tonumber(ARGV[1])
+            if token < tonumber(redis.call('GET', KEYS[2]) or '0') then return 0 end
+            redis.call('SET', KEYS[1], ARGV[2])
+            redis.call('SET', KEYS[2], ARGV[1])
+            redis.call('PUBLISH', ARGV[3], ARGV[4])
+            return 1
+            """, Long.class);
+
+    private final ReactiveRedisTemplate<String, byte[]> redisTemplate;
+    private final String leaseKey;
+    private final String fenceKey;
+    private final String snapshotKey;
+    private final String snapshotTokenKey;
+    private final String channel;
+    private final Duration leaseDuration;
+    private final Duration timeout;
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile long token;
+    private volatile long leaseDeadlineNanos;
+    private volatile boolean leader;
+    private volatile long lastAnsweredNanos = System.nanoTime();
+    private volatile boolean pollingLocally;
+    private final Sinks.Many<Long> gained = Sinks.many().multicast().directBestEffort();
+    private Disposable renewal;
+
+    public RedisSnapshotLeadership(ReactiveRedisTemplate<String, byte[]> redisTemplate, String keyPrefix,
+            Duration leaseDuration, Duration timeout) {
+        this.redisTemplate = redisTemplate;
+        this.leaseKey = keyPrefix + ":snapshot:leader";
+        this.fenceKey = keyPrefix + ":snapshot:fence";
+        this.snapshotKey = keyPrefix + ":snapshot:shared";
+        this.snapshotTokenKey = keyPrefix + ":snapshot:shared-token";
+        this.channel = keyPrefix + ":snapshot:updates";
+        this.leaseDuration = leaseDuration;
+        this.timeout = timeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        renewal = Flux.interval(Duration.ZERO, leaseDuration.dividedBy(3))
+                .onBackpressureDrop()
+                .concatMap(tick -> renew()
+                        .onErrorResume(e -> {
+                            log.warn("Snapshot lease renewal failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (renewal != null) {
+            renewal.dispose();
+        }
+        if (leader) {
+            // Hand over straight away instead of letting the followers wait out the lease
+            leader = false;
+            try {
+                redisTemplate.execute(RELEASE, List.of(leaseKey), List.of(bytes(instanceId + ":" + token)))
+                        .next()
+                        .block(timeout);
+            } catch (RuntimeException e) {
+                log.warn("Could not release snapshot lease: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isLeader() {
+        return pollingLocally || holdsLease();
+    }
+
+    /**
+     * @return fencing tokens of leases newly taken, or 0 on falling back to local polling
+     */
+    @Override
+    public Flux<Long> leadershipGained() {
+        return gained.asFlux();
+    }
+
+    private boolean holdsLease() {
+        return leader && System.nanoTime() - leaseDeadlineNanos < 0;
+    }
+
+    /**
+     * Takes the lease if it is free, or extends it if this replica holds it.
+     *
+     * @return the fencing token of the lease held, or 0 if another replica holds it
+     */
+    Mono<Long> renew() {
+        long sentAt = System.nanoTime();
+        return redisTemplate.execute(ACQUIRE, List.of(leaseKey, fenceKey),
+                        List.of(bytes(instanceId), bytes(Long.toString(leaseDuration.toMillis()))))
+                .next()
+                .timeout(timeout)
+                .doOnNext(acquired -> {
+                    boolean wasLeader = holdsLease();
+                    lastAnsweredNanos = System.nanoTime();
+                    if (pollingLocally) {
+                        pollingLocally = false;
+                        log.info("Redis reachable again, resuming the tube snapshot leader election");
+                    }
+                    if (acquired > 0) {
+                        token = acquired;
+                        leaseDeadlineNanos = sentAt + leaseDuration.toNanos();
+                        leader = true;
+                        if (!wasLeader) {
+                            log.info("Elected tube snapshot leader with fencing token {}", acquired);
+                            gained.tryEmitNext(acquired);
+                        }
+                    } else {
+                        leader = false;
+                        if (wasLeader) {
+                            log.warn("Lost tube snapshot leadership to another replica");
+                        }
+                    }
+                })
+                .doOnError(e -> {
+                    if (!pollingLocally && System.nanoTime() - lastAnsweredNanos > leaseDuration.toNanos()) {
+                        pollingLocally = true;
+                        leader = false;
+                        log.warn("Redis has not answered a snapshot lease renewal for {}, polling TfL locally",
+                                leaseDuration);
+                        gained.tryEmitNext(0L);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Void> share(TubeSnapshot snapshot) {
+        if (!holdsLease()) {
+            return Mono.empty();
+        }
+        long fencingToken = token;
+        SharedSnapshot.Builder shared = SharedSnapshot.newBuilder()
+                .setVersion(snapshot.version())
+                .setFetchedAtEpochMillis(snapshot.fetchedAt().toEpochMilli())
+                .setFencingToken(fencingToken);
+        for (LineStatusResponse response : snapshot.allLineStatuses()) {
+            shared.addLines(response.getLine());
+        }
+        return redisTemplate.execute(SHARE, List.of(snapshotKey, snapshotTokenKey),
+                        List.of(bytes(Long.toString(fencingToken)), shared.build().toByteArray(), bytes(channel),
+                                bytes(instanceId + ":" + snapshot.version())))
+                .next()
+                .timeout(timeout)
+                .doOnNext(accepted -> {
+                    if (accepted == 0 && token == fencingToken) {
+                        leader = false;
+                        log.warn("Shared tube snapshot v{} rejected: a newer leader has published",
+                                snapshot.version());
+                    }
+                })
+                .then();
+    }
+
+    @Override
+    public Mono<SharedSnapshot> latestShared() {
+        return redisTemplate.opsForValue().get(snapshotKey)
+                .timeout(timeout)
+                .flatMap(bytes -> {
+                    try {
+                        return Mono.just(SharedSnapshot.parseFrom(bytes));
+                    } catch (InvalidProtocolBufferException e) {
+                        log.warn("Discarding undecodable shared tube snapshot: {}", e.getMessage());
+                        return Mono.empty();
+                    }
+                });
+    }
+
+    @Override
+    public Flux<Long> sharedVersions() {
+        return redisTemplate.listenToChannel(channel)
+                .map(message -> new String(message.getMessage(), StandardCharsets.UTF_8).split(":", 2))
+                .filter(parts -> parts.length == 2 && !instanceId.equals(parts[0]))
+                .map(parts -> Long.parseLong(parts[1]))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Shared snapshot subscription lost, resubscribing: {}",
+                                signal.failure().getMessage())));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ig.group.tfl.status.snapshot;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decides which replica polls TfL for the tube snapshot. A stand-alone replica
+ * always does; in a cluster only the elected leader polls, shares each snapshot
+ * it publishes, and every other replica follows the shared copy.
+ */
+public interface SnapshotLeadership {
+
+    /**
+     * Whether this replica should poll TfL: it is the leader, or it cannot tell
+     * who is because the election itself is unavailable.
+     */
+    boolean isLeader();
+
+    /**
+     * Hot feed signalling that this replica has just become responsible for
+     * polling, so it can poll at once rather than on its next tick.
+     */
+    Flux<Long> leadershipGained();
+
+    /**
+     * Makes a snapshot published by the leader available to followers.
+     */
+    Mono<Void> share(TubeSnapshot snapshot);
+
+    /**
+     * @return the snapshot last shared by a leader, or empty if there is none
+     */
+    Mono<SharedSnapshot> latestShared();
+
+    /**
+     * Hot feed of the versions shared by other replicas, signalling that
+     * {@link #latestShared()} has changed.
+     */
+    Flux<Long> sharedVersions();
+
+    static SnapshotLeadership standalone() {
+        return new SnapshotLeadership() {
+            @Override
+            public boolean isLeader() {
+                return true;
+            }
+
+            @Override
+            public Flux<Long> leadershipGained() {
+                return Flux.empty();
+            }
+
+            @Override
+            public Mono<Void> share(TubeSnapshot snapshot) {
+                return Mono.empty();
+            }
+
+            @Override
+            public Mono<SharedSnapshot> latestShared() {
+                return Mono.empty();
+            }
+
+            @Override
+            public Flux<Long> sharedVersions() {
+                return Flux.empty();
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.UnplannedDisruptionsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-subscriber views over the shared snapshot feed. Every watcher is driven by
+ * the same poll, so the number of watchers never affects upstream traffic.
+ * Changes are detected by identity, which {@link TubeSnapshot} preserves for
+ * unchanged data.
+ */
+@Component
+@RequiredArgsConstructor
+public class TubeChangeFeed {
+
+    private final TubeSnapshotHolder snapshotHolder;
+
+    /**
+     * Emits the current status of each requested tube line, then a line again
+     * whenever its statuses change. An empty collection watches every line.
+     * Fails with {@link IllegalArgumentException} if the first snapshot with any
+     * lines lacks a requested one, rather than never emitting for it.
+     */
+    public Flux<LineStatusResponse> lineChanges(Collection<String> lineIds) {
+        Set<String> wanted = lineIds.stream()
+                .map(id -> TubeSnapshot.normalize(id.trim()))
+                .collect(Collectors.toUnmodifiableSet());
+        return Flux.defer(() -> {
+            Map<String, LineStatusResponse> lastEmitted = new HashMap<>();
+            return snapshotHolder.updates().concatMapIterable(snapshot -> {
+                if (lastEmitted.isEmpty() && !snapshot.lineStatuses().isEmpty()) {
+                    List<String> unknown = wanted.stream()
+                            .filter(id -> !snapshot.lineStatuses().containsKey(id))
+                            .sorted()
+                            .toList();
+                    if (!unknown.isEmpty()) {
+                        throw new IllegalArgumentException("Unknown tube line ids: " + unknown);
+                    }
+                }
+                List<LineStatusResponse> changed = new ArrayList<>();
+                snapshot.lineStatuses().forEach((lineId, response) -> {
+                    if ((wanted.isEmpty() || wanted.contains(lineId)) && lastEmitted.put(lineId, response) != response) {
+                        changed.add(response);
+                    }
+                });
+                return changed;
+            });
+        });
+    }
+
+    /**
+     * Emits the current unplanned disruptions, then again whenever the set changes.
+     */
+    public Flux<UnplannedDisruptionsResponse> unplannedChanges() {
+        return snapshotHolder.updates()
+                .map(TubeSnapshot::unplannedDisruptions)
+                .distinctUntilChanged(Function.identity(), (previous, next) -> previous == next);
+    }
+}
@@ -0,0 +1,14 @@
+package com.ig.group.tfl.status.snapshot;
+
+/**
+ * One change in the tube state, already rendered as JSON so it is encoded once
+ * however many clients receive it. Each event carries the full state for its
+ * key, so a newer event for a key supersedes every older one.
+ *
+ * @param id   position in the event log, strictly increasing
+ * @param type {@link TubeEventLog#LINE_STATUS} or {@link TubeEventLog#UNPLANNED_DISRUPTIONS}
+ * @param key  the normalized line id, or the type for the unplanned disruptions set
+ * @param data the protobuf JSON rendering of the new state
+ */
+public record TubeEvent(long id, String type, String key, String data) {
+}
@@ -0,0 +1,104 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.util.JsonFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Numbered log of tube change events derived from the snapshot feed. The last
+ * {@code tfl.events.log-size} events are retained so that a reconnecting client
+ * can resume from the last id it saw; a client that is new, or too far behind,
+ * is sent the latest event for every key instead. All clients share the one
+ * hot sink, so fan-out does not depend on how often TfL is polled.
+ */
+@Component
+@Slf4j
+public class TubeEventLog {
+
+    public static final String LINE_STATUS = "line-status";
+    public static final String UNPLANNED_DISRUPTIONS = "unplanned-disruptions";
+
+    private static final JsonFormat.Printer JSON = JsonFormat.printer().omittingInsignificantWhitespace();
+
+    private final TubeSnapshotHolder snapshotHolder;
+    private final int capacity;
+    private final Sinks.Many<TubeEvent> events;
+    private final Map<String, TubeEvent> latestByKey = new LinkedHashMap<>();
+    private final Map<String, Message> latestSources = new HashMap<>();
+    private long lastId;
+    private Disposable subscription;
+
+    public TubeEventLog(TubeSnapshotHolder snapshotHolder, @Value("${tfl.events.log-size:1024}") int capacity) {
+        this.snapshotHolder = snapshotHolder;
+        this.capacity = capacity;
+        this.events = Sinks.many().replay().limit(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        subscription = snapshotHolder.updates().subscribe(this::append);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    /**
+     * @param lastEventId the last id the client received, or null for a new client
+     * @return the events the client is missing followed by live events
+     */
+    public Flux<TubeEvent> events(Long lastEventId) {
+        return Flux.create(sink -> {
+            // append emits under this lock, so the range check and the subscription see the same lastId
+            synchronized (this) {
+                long replayAfter;
+                if (lastEventId != null && lastEventId >= lastId - capacity && lastEventId <= lastId) {
+                    replayAfter = lastEventId;
+                } else {
+                    latestByKey.values().stream().sorted(Comparator.comparingLong(TubeEvent::id)).forEach(sink::next);
+                    replayAfter = lastId;
+                }
+                sink.onDispose(events.asFlux()
+                        .filter(event -> event.id() > replayAfter)
+                        .subscribe(sink::next, sink::error, sink::complete));
+            }
+        });
+    }
+
+    synchronized void append(TubeSnapshot snapshot) {
+        snapshot.lineStatuses().forEach((lineId, response) -> appendIfChanged(LINE_STATUS, lineId, response));
+        appendIfChanged(UNPLANNED_DISRUPTIONS, UNPLANNED_DISRUPTIONS, snapshot.unplannedDisruptions());
+    }
+
+    private void appendIfChanged(String type, String key, Message source) {
+        if (latestSources.put(key, source) == source) {
+            return;
+        }
+        TubeEvent event;
+        try {
+            event = new TubeEvent(lastId + 1, type, key, JSON.print(source));
+        } catch (InvalidProtocolBufferException e) {
+            log.warn("Could not render {} event for {}: {}", type, key, e.getMessage());
+            return;
+        }
+        lastId = event.id();
+        latestByKey.put(key, event);
+        events.emitNext(event, Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+}
@@ -0,0 +1,117 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.UnplannedDisruptionsResponse;
+import com.ig.group.tfl.status.severity.SeverityClassifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of every tube line's status as of one poll of
+ * /Line/Mode/tube/Status. Responses are built once when the snapshot is
+ * created so that serving a read is a plain map lookup.
+ * The version only changes when the line data changes, and responses for
+ * unchanged lines are carried over from the previous snapshot as the same
+ * instances, so consumers can detect changes by identity.
+ * A restored snapshot was loaded from disk at startup rather than fetched by
+ * this process; it stays restored until the first successful poll.
+ */
+public record TubeSnapshot(long version, Instant fetchedAt, Map<String, LineStatusResponse> lineStatuses,
+        Set<String> unplannedLineIds, UnplannedDisruptionsResponse unplannedDisruptions, boolean restored) {
+
+    public static final TubeSnapshot EMPTY = new TubeSnapshot(0, Instant.EPOCH, Map.of(), Set.of(),
+            UnplannedDisruptionsResponse.getDefaultInstance(), false);
+
+    /**
+     * Builds the snapshot that follows this one, bumping the version only if the
+     * line data differs. The unplanned disruption index is updated incrementally:
+     * only new or changed lines are classified, and the response is rebuilt only
+     * if a line in it changed or the set of disrupted lines did.
+     */
+    public TubeSnapshot next(List<LineInfo> lines, Instant fetchedAt, SeverityClassifier classifier) {
+        if (hasSameLines(lines)) {
+            return new TubeSnapshot(version, fetchedAt, lineStatuses, unplannedLineIds, unplannedDisruptions, false);
+        }
+
+        Map<String, LineStatusResponse> nextStatuses = new LinkedHashMap<>();
+        Set<String> nextUnplannedIds = new LinkedHashSet<>();
+        boolean unplannedChanged = false;
+        for (LineInfo line : lines) {
+            String id = normalize(line.getId());
+            LineStatusResponse previous = lineStatuses.get(id);
+            boolean unchanged = previous != null && previous.getLine().equals(line);
+            nextStatuses.put(id, unchanged ? previous : LineStatusResponse.newBuilder().setLine(line).build());
+            boolean unplanned = unchanged ? unplannedLineIds.contains(id) : classifier.hasUnplannedDisruption(line);
+            if (unplanned) {
+                nextUnplannedIds.add(id);
+            }
+            unplannedChanged |= !unchanged && (unplanned || unplannedLineIds.contains(id));
+        }
+
+        UnplannedDisruptionsResponse nextUnplanned = unplannedDisruptions;
+        if (unplannedChanged || !List.copyOf(nextUnplannedIds).equals(List.copyOf(unplannedLineIds))) {
+            UnplannedDisruptionsResponse.Builder unplanned = UnplannedDisruptionsResponse.newBuilder();
+            nextUnplannedIds.forEach(id -> unplanned.addAffectedLines(nextStatuses.get(id).getLine()));
+            nextUnplanned = unplanned.build();
+        }
+        return new TubeSnapshot(version + 1, fetchedAt, Collections.unmodifiableMap(nextStatuses),
+                Collections.unmodifiableSet(nextUnplannedIds), nextUnplanned, false);
+    }
+
+    /**
+     * Builds a snapshot of lines read back from disk, keeping the version they
+     * were published under so that versions keep increasing across a restart.
+     */
+    public static TubeSnapshot restore(long version, Instant fetchedAt, List<LineInfo> lines,
+            SeverityClassifier classifier) {
+        TubeSnapshot built = EMPTY.next(lines, fetchedAt, classifier);
+        return new TubeSnapshot(version, fetchedAt, built.lineStatuses, built.unplannedLineIds,
+                built.unplannedDisruptions, true);
+    }
+
+    public boolean isEmpty() {
+        return lineStatuses.isEmpty();
+    }
+
+    public Duration age(Instant now) {
+        return Duration.between(fetchedAt, now);
+    }
+
+    /**
+     * @return the prebuilt response for the line, or null if it is not a tube line
+     */
+    public LineStatusResponse lineStatus(String lineId) {
+        return lineStatuses.get(normalize(lineId));
+    }
+
+    public Collection<LineStatusResponse> allLineStatuses() {
+        return lineStatuses.values();
+    }
+
+    public boolean hasSameLines(List<LineInfo> lines) {
+        if (lines.size() != lineStatuses.size()) {
+            return false;
+        }
+        for (LineInfo line : lines) {
+            LineStatusResponse current = lineStatuses.get(normalize(line.getId()));
+            if (current == null || !current.getLine().equals(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String normalize(String lineId) {
+        return lineId.toLowerCase(Locale.ROOT);
+    }
+}
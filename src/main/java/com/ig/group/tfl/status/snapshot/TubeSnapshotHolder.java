@@ -0,0 +1,72 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.severity.SeverityClassifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publishes tube snapshots atomically. Readers take whatever snapshot is current
+ * without locking; a new snapshot replaces the old one in a single volatile write.
+ * Snapshots with a new version are also pushed to {@link #updates()}, the single
+ * change feed shared by every streaming subscriber.
+ */
+@Component
+@Slf4j
+public class TubeSnapshotHolder {
+
+    private final Sinks.Many<TubeSnapshot> updates = Sinks.many().replay().latest();
+    private final SeverityClassifier classifier;
+    private volatile TubeSnapshot current = TubeSnapshot.EMPTY;
+
+    public TubeSnapshotHolder(SeverityClassifier classifier) {
+        this.classifier = classifier;
+    }
+
+    public TubeSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Hot feed of snapshots whose version changed. New subscribers immediately
+     * receive the latest one, so they can render the current state before deltas.
+     */
+    public Flux<TubeSnapshot> updates() {
+        return updates.asFlux();
+    }
+
+    public synchronized TubeSnapshot publish(List<LineInfo> lines, Instant fetchedAt) {
+        TubeSnapshot previous = current;
+        TubeSnapshot snapshot = previous.next(lines, fetchedAt, classifier);
+        current = snapshot;
+        if (snapshot.version() != previous.version()) {
+            log.info("Published tube snapshot v{} with {} lines ({} with unplanned disruptions)", snapshot.version(),
+                    lines.size(), snapshot.unplannedDisruptions().getAffectedLinesCount());
+            updates.emitNext(snapshot, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Installs a snapshot restored from disk, unless one has already been
+     * published by then.
+     *
+     * @return whether the restored snapshot became current
+     */
+    public synchronized boolean restore(long version, Instant fetchedAt, List<LineInfo> lines) {
+        if (!current.isEmpty()) {
+            return false;
+        }
+        TubeSnapshot snapshot = TubeSnapshot.restore(version, fetchedAt, lines, classifier);
+        current = snapshot;
+        log.info("Restored tube snapshot v{} with {} lines fetched at {}", version, lines.size(), fetchedAt);
+        updates.emitNext(snapshot, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.service.TflStatusService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Polls /Line/Mode/tube/Status on a fixed interval and publishes the result as a
+ * new {@link TubeSnapshot}. Upstream call volume is one request per interval
+ * regardless of client load. Polls never overlap: a slow poll delays the next tick.
+ * The fetch goes through the service's resilience and single-flight path, so it
+ * shares a request with any concurrent on-demand all-tube fetch. Each published
+ * snapshot is then persisted by the {@link TubeSnapshotStore}, off the event loop.
+ * In a cluster only the {@link SnapshotLeadership} leader polls TfL and shares
+ * what it fetched; the other replicas publish the shared snapshot when notified
+ * of a new one, and check for one on every tick in case a notification was lost.
+ * A replica polls as soon as it becomes the leader, so the first poll after
+ * startup is not a whole interval behind the first lease renewal.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "tfl.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class TubeSnapshotPoller {
+
+    private final TflStatusService statusService;
+    private final TubeSnapshotHolder snapshotHolder;
+    private final TubeSnapshotStore snapshotStore;
+    private final SnapshotLeadership leadership;
+    private final Duration pollInterval;
+    private Disposable subscription;
+
+    public TubeSnapshotPoller(TflStatusService statusService, TubeSnapshotHolder snapshotHolder,
+            TubeSnapshotStore snapshotStore, SnapshotLeadership leadership,
+            @Value("${tfl.snapshot.poll-interval:30s}") Duration pollInterval) {
+        this.statusService = statusService;
+        this.snapshotHolder = snapshotHolder;
+        this.snapshotStore = snapshotStore;
+        this.leadership = leadership;
+        this.pollInterval = pollInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        log.info("Starting tube snapshot poller with interval {}", pollInterval);
+        subscription = Flux.merge(Flux.interval(Duration.ZERO, pollInterval).map(tick -> true),
+                        leadership.leadershipGained().map(token -> true),
+                        leadership.sharedVersions().map(version -> false))
+                .onBackpressureDrop()
+                .concatMap(scheduled -> poll(scheduled)
+                        .onErrorResume(e -> {
+                            log.warn("Tube snapshot refresh failed, keeping v{}: {}",
+                                    snapshotHolder.current().version(), e.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Mono<TubeSnapshot> poll(boolean scheduled) {
+        if (!leadership.isLeader()) {
+            return follow();
+        }
+        TubeSnapshot current = snapshotHolder.current();
+        // A replica just elected may already hold a fresh snapshot from the previous leader
+        boolean fresh = !current.restored() && current.age(Instant.now()).compareTo(pollInterval.dividedBy(2)) < 0;
+        if (!scheduled || fresh) {
+            return Mono.empty();
+        }
+        return refresh().flatMap(snapshot -> leadership.share(snapshot).thenReturn(snapshot));
+    }
+
+    private Mono<TubeSnapshot> follow() {
+        return leadership.latestShared()
+                .filter(shared -> snapshotHolder.current().restored()
+                        || shared.getFetchedAtEpochMillis() > snapshotHolder.current().fetchedAt().toEpochMilli())
+                .map(shared -> snapshotHolder.publish(shared.getLinesList(),
+                        Instant.ofEpochMilli(shared.getFetchedAtEpochMillis())))
+                .flatMap(this::persist);
+    }
+
+    public Mono<TubeSnapshot> refresh() {
+        return statusService.fetchAllTubeLines()
+                .map(lines -> snapshotHolder.publish(lines, Instant.now()))
+                .flatMap(this::persist);
+    }
+
+    private Mono<TubeSnapshot> persist(TubeSnapshot snapshot) {
+        return Mono.fromCallable(() -> {
+                    snapshotStore.save(snapshot);
+                    return snapshot;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.warn("Could not persist tube snapshot v{}: {}", snapshot.version(), e.toString());
+                    return Mono.just(snapshot);
+                });
+    }
+}
@@ -0,0 +1,131 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last published tube snapshot on local disk, so that a restarted
+ * instance can serve it straight away instead of starting empty. The file holds
+ * a header (magic, format, snapshot version, fetch time, line count) followed by
+ * the lines as length-delimited protobuf {@link LineInfo} records. It is
+ * rewritten after every successful poll by writing a temporary file and renaming
+ * it over the old one, so a reader never sees a partial file.
+ * The snapshot is restored while the application context starts, before the
+ * HTTP and gRPC servers accept calls; a file older than
+ * {@code tfl.snapshot.persist.max-age}, or one that cannot be read, is ignored.
+ */
+@Component
+@Slf4j
+public class TubeSnapshotStore {
+
+    static final int MAGIC = 0x54464c53;
+    static final int FORMAT = 1;
+    private static final int MAX_LINES = 10_000;
+
+    private final TubeSnapshotHolder snapshotHolder;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration maxAge;
+
+    public TubeSnapshotStore(TubeSnapshotHolder snapshotHolder,
+            @Value("${tfl.snapshot.persist.enabled:false}") boolean enabled,
+            @Value("${tfl.snapshot.persist.path:tube-snapshot.bin}") Path path,
+            @Value("${tfl.snapshot.persist.max-age:1h}") Duration maxAge) {
+        this.snapshotHolder = snapshotHolder;
+        this.enabled = enabled;
+        this.path = path;
+        this.maxAge = maxAge;
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!enabled) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                log.warn("Ignoring persisted tube snapshot {}: unrecognised format", path);
+                return;
+            }
+            long version = in.readLong();
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            if (Duration.between(fetchedAt, Instant.now()).compareTo(maxAge) > 0) {
+                log.info("Ignoring persisted tube snapshot v{}: fetched at {}, older than {}", version, fetchedAt,
+                        maxAge);
+                return;
+            }
+            List<LineInfo> lines = readLines(in, in.readInt());
+            snapshotHolder.restore(version, fetchedAt, lines);
+        } catch (NoSuchFileException e) {
+            log.info("No persisted tube snapshot at {}", path);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring persisted tube snapshot {}: {}", path, e.toString());
+        }
+    }
+
+    /**
+     * Replaces the persisted snapshot. Blocks on file I/O, so callers on an event
+     * loop must move it to another scheduler.
+     */
+    public void save(TubeSnapshot snapshot) throws IOException {
+        if (!enabled || snapshot.isEmpty()) {
+            return;
+        }
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile());
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(snapshot.version());
+                out.writeLong(snapshot.fetchedAt().toEpochMilli());
+                out.writeInt(snapshot.lineStatuses().size());
+                for (LineStatusResponse response : snapshot.allLineStatuses()) {
+                    response.getLine().writeDelimitedTo(out);
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static List<LineInfo> readLines(InputStream in, int count) throws IOException {
+        if (count < 0 || count > MAX_LINES) {
+            throw new IOException("implausible line count " + count);
+        }
+        List<LineInfo> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LineInfo line = LineInfo.parseDelimitedFrom(in);
+            if (line == null) {
+                throw new IOException("truncated after " + i + " of " + count + " lines");
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+}
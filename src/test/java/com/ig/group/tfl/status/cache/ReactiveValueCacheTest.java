@@ -0,0 +1,296 @@
+package com.ig.group.tfl.status.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactiveValueCacheTest {
+
+    private ReactiveValueCache<String, String> cache;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReactiveValueCache<>("test", Duration.ofMinutes(1), 100);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    private Mono<String> loader(String key) {
+        return Mono.fromCallable(() -> {
+            upstreamCalls.incrementAndGet();
+            return "value-" + key;
+        });
+    }
+
+    @Test
+    void get_CachesResolvedValueAcrossSubscriptions() {
+        Mono<Timestamped<String>> first = cache.get("central", this::loader);
+        Mono<Timestamped<String>> second = cache.get("central", this::loader);
+
+        StepVerifier.create(first).assertNext(entry -> assertEquals("value-central", entry.value())).verifyComplete();
+        StepVerifier.create(second).assertNext(entry -> assertEquals("value-central", entry.value())).verifyComplete();
+        StepVerifier.create(first).assertNext(entry -> assertEquals("value-central", entry.value())).verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void get_DoesNotCacheErrors() {
+        StepVerifier.create(cache.get("central", key -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.error(new IllegalStateException("TfL down"));
+        })).verifyError(IllegalStateException.class);
+
+        StepVerifier.create(cache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void get_DoesNotCacheEmptyResults() {
+        StepVerifier.create(cache.get("central", key -> Mono.empty())).verifyComplete();
+
+        StepVerifier.create(cache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+    }
+
+    @Test
+    void get_ReloadsAfterInvalidate() {
+        StepVerifier.create(cache.get("central", this::loader)).assertNext(entry -> assertEquals("value-central", entry.value())).verifyComplete();
+        cache.invalidate("central");
+        StepVerifier.create(cache.get("central", this::loader)).assertNext(entry -> assertEquals("value-central", entry.value())).verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void get_ReadsThroughSharedTierBeforeCallingUpstream() {
+        InMemoryTier sharedTier = new InMemoryTier();
+        sharedTier.entries.put("central", new Timestamped<>("shared-central", Instant.now()));
+        ReactiveValueCache<String, String> nearCache = new ReactiveValueCache<>("test", Duration.ofMinutes(1),
+                Duration.ofMinutes(1), 100, sharedTier, Clock.systemUTC());
+
+        StepVerifier.create(nearCache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("shared-central", entry.value()))
+                .verifyComplete();
+
+        assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    void get_IgnoresExpiredSharedEntryAndWritesFreshValueBack() {
+        InMemoryTier sharedTier = new InMemoryTier();
+        sharedTier.entries.put("central", new Timestamped<>("old-central", Instant.now().minusSeconds(120)));
+        ReactiveValueCache<String, String> nearCache = new ReactiveValueCache<>("test", Duration.ofMinutes(1),
+                Duration.ofMinutes(1), 100, sharedTier, Clock.systemUTC());
+
+        StepVerifier.create(nearCache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("value-central", sharedTier.entries.get("central").value());
+    }
+
+    @Test
+    void get_ServesStaleEntryWhileSingleBackgroundRefreshRuns() {
+        MutableClock clock = new MutableClock();
+        ReactiveValueCache<String, String> swrCache = new ReactiveValueCache<>("test", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, null, clock);
+        StepVerifier.create(swrCache.get("central", this::loader)).expectNextCount(1).verifyComplete();
+
+        clock.advance(Duration.ofSeconds(90));
+        Sinks.One<String> refresh = Sinks.one();
+        AtomicInteger refreshCalls = new AtomicInteger();
+        Function<String, Mono<String>> slowLoader = key -> {
+            refreshCalls.incrementAndGet();
+            return refresh.asMono();
+        };
+
+        StepVerifier.create(swrCache.get("central", slowLoader))
+                .assertNext(entry -> assertTrue(swrCache.isStale(entry)))
+                .verifyComplete();
+        StepVerifier.create(swrCache.get("central", slowLoader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+        assertEquals(1, refreshCalls.get());
+
+        refresh.tryEmitValue("refreshed-central");
+        StepVerifier.create(swrCache.get("central", slowLoader))
+                .assertNext(entry -> {
+                    assertEquals("refreshed-central", entry.value());
+                    assertFalse(swrCache.isStale(entry));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void get_KeepsServingLastGoodValueWhenRefreshFails() {
+        MutableClock clock = new MutableClock();
+        ReactiveValueCache<String, String> swrCache = new ReactiveValueCache<>("test", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, null, clock);
+        StepVerifier.create(swrCache.get("central", this::loader)).expectNextCount(1).verifyComplete();
+
+        clock.advance(Duration.ofSeconds(120));
+        Function<String, Mono<String>> failingLoader = key -> Mono.error(new IllegalStateException("breaker open"));
+
+        StepVerifier.create(swrCache.get("central", failingLoader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+        StepVerifier.create(swrCache.get("central", failingLoader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+    }
+
+    @Test
+    void get_RefreshesStaleEntryFromSharedTierRefreshedByAnotherReplica() {
+        MutableClock clock = new MutableClock();
+        InMemoryTier sharedTier = new InMemoryTier();
+        ReactiveValueCache<String, String> nearCache = new ReactiveValueCache<>("test", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, sharedTier, clock);
+        StepVerifier.create(nearCache.get("central", this::loader)).expectNextCount(1).verifyComplete();
+
+        clock.advance(Duration.ofSeconds(90));
+        sharedTier.entries.put("central", new Timestamped<>("shared-central", clock.instant()));
+        StepVerifier.create(nearCache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("value-central", entry.value()))
+                .verifyComplete();
+
+        StepVerifier.create(nearCache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("shared-central", entry.value()))
+                .verifyComplete();
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void get_OnlyOneReplicaRefreshesAStaleSharedEntry() {
+        MutableClock clock = new MutableClock();
+        InMemoryTier sharedTier = new InMemoryTier();
+        ReactiveValueCache<String, String> first = new ReactiveValueCache<>("test", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, sharedTier, clock);
+        ReactiveValueCache<String, String> second = new ReactiveValueCache<>("test", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, sharedTier, clock);
+        StepVerifier.create(first.get("central", this::loader)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(second.get("central", this::loader)).expectNextCount(1).verifyComplete();
+        assertEquals(1, upstreamCalls.get());
+
+        clock.advance(Duration.ofSeconds(90));
+        Sinks.One<String> refresh = Sinks.one();
+        Function<String, Mono<String>> slowLoader = key -> {
+            upstreamCalls.incrementAndGet();
+            return refresh.asMono();
+        };
+        StepVerifier.create(first.get("central", slowLoader)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(second.get("central", slowLoader)).expectNextCount(1).verifyComplete();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void get_ServesStaleSharedEntryOnMissWhileAnotherReplicaRefreshes() {
+        InMemoryTier sharedTier = new InMemoryTier();
+        sharedTier.entries.put("central", new Timestamped<>("old-central", Instant.now().minusSeconds(90)));
+        sharedTier.locked.add("central");
+        ReactiveValueCache<String, String> nearCache = new ReactiveValueCache<>("test", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, sharedTier, Clock.systemUTC());
+
+        StepVerifier.create(nearCache.get("central", this::loader))
+                .assertNext(entry -> assertEquals("old-central", entry.value()))
+                .verifyComplete();
+
+        assertEquals(0, upstreamCalls.get());
+    }
+
+    @Test
+    void bindTo_ExportsHitsMissesAndStaleReadsPerTier() {
+        MutableClock clock = new MutableClock();
+        InMemoryTier sharedTier = new InMemoryTier();
+        sharedTier.entries.put("central", new Timestamped<>("shared-central", clock.instant()));
+        ReactiveValueCache<String, String> nearCache = new ReactiveValueCache<>("lineStatus", Duration.ofSeconds(60),
+                Duration.ofMinutes(5), 100, sharedTier, clock);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        nearCache.bindTo(registry);
+
+        nearCache.get("central", this::loader).block();
+        nearCache.get("dlr", this::loader).block();
+        nearCache.get("dlr", this::loader).block();
+        clock.advance(Duration.ofSeconds(90));
+        nearCache.get("central", key -> Mono.never()).block();
+
+        assertEquals(2, registry.get("cache.gets").tags("cache", "lineStatus", "result", "hit").functionCounter()
+                .count());
+        assertEquals(2, registry.get("cache.gets").tags("cache", "lineStatus", "result", "miss").functionCounter()
+                .count());
+        assertEquals(1, registry.get("tfl.cache.shared.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("tfl.cache.shared.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("tfl.cache.stale.served").tag("cache", "lineStatus").functionCounter().count());
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static class InMemoryTier implements CacheTier<String> {
+
+        private final Map<String, Timestamped<String>> entries = new ConcurrentHashMap<>();
+        private final Set<String> locked = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Mono<Timestamped<String>> get(String key) {
+            return Mono.justOrEmpty(entries.get(key));
+        }
+
+        @Override
+        public Mono<Void> put(String key, Timestamped<String> entry) {
+            return Mono.fromRunnable(() -> entries.put(key, entry));
+        }
+
+        @Override
+        public Mono<Boolean> tryLockRefresh(String key) {
+            return Mono.fromCallable(() -> locked.add(key));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ig.group.tfl.status.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxQueue) {
+        return new AdaptiveConcurrencyLimiter(true, initialLimit, 1, 200, maxQueue, Duration.ofMillis(100),
+                meterRegistry);
+    }
+
+    @Test
+    void onSample_GrowsAtNoLoadRttAndShrinksAsRttRisesOrCallsTimeOut() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 10);
+        limiter.onSample(10 * MILLIS, 20, false);
+        limiter.onSample(10 * MILLIS, 20, false);
+        assertEquals(27, limiter.limit());
+
+        // Double the no-load RTT: about half of the calls are queued at TfL
+        limiter.onSample(20 * MILLIS, 27, false);
+        assertEquals(26, limiter.limit());
+
+        limiter.onSample(30 * MILLIS, 26, true);
+        assertEquals(24, limiter.limit());
+        assertEquals(24, meterRegistry.get("tfl.upstream.concurrency.limit").gauge().value());
+
+        // Too few calls in flight to say whether a higher limit would help
+        limiter.onSample(10 * MILLIS, 2, false);
+        assertEquals(24, limiter.limit());
+    }
+
+    @Test
+    void execute_QueuesCallsOverTheLimitAndShedsThemOnceTheQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        Sinks.One<String> first = Sinks.one();
+
+        StepVerifier.create(Mono.zip(
+                        limiter.execute(first::asMono),
+                        limiter.execute(() -> Mono.just("Minor Delays"))))
+                .then(() -> {
+                    assertEquals(1, limiter.inFlight());
+                    assertEquals(1, limiter.queued());
+                    StepVerifier.create(limiter.execute(() -> Mono.just("Closed")))
+                            .expectError(UpstreamOverloadedException.class)
+                            .verify();
+                    first.tryEmitValue("Good Service");
+                })
+                .assertNext(results -> assertEquals("Minor Delays", results.getT2()))
+                .verifyComplete();
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(1, meterRegistry.get("tfl.upstream.concurrency.rejected").counter().count());
+    }
+
+    @Test
+    void execute_ShedsCallQueuedLongerThanTheQueueTimeout() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        limiter.execute(Mono::<String>never).subscribe();
+
+        StepVerifier.withVirtualTime(() -> limiter.execute(() -> Mono.just("Good Service")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectErrorSatisfies(e -> assertTrue(e.getMessage().contains("queued longer")))
+                .verify();
+        assertEquals(0, limiter.queued());
+    }
+}
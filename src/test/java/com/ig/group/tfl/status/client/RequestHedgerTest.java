@@ -0,0 +1,100 @@
+package com.ig.group.tfl.status.client;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHedgerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private Deque<Mono<String>> attempts;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.ofDefaults("tflApi");
+        attempts = new ArrayDeque<>();
+    }
+
+    private RequestHedger hedger(double budgetPercent) {
+        return new RequestHedger(new HedgePolicy(true, 0.95, Duration.ofMillis(10), Duration.ofMillis(100),
+                budgetPercent), circuitBreaker, meterRegistry);
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("tfl.upstream.hedge").tag("operation", "lineStatus").tag("outcome", outcome)
+                .counter().count();
+    }
+
+    @Test
+    void execute_HedgesSlowAttemptAndCancelsTheLoser() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        attempts.add(Mono.<String>never().doOnCancel(() -> primaryCancelled.set(true)));
+        attempts.add(Mono.just("Good Service"));
+        RequestHedger hedger = hedger(100);
+
+        StepVerifier.withVirtualTime(() -> hedger.execute("lineStatus", attempts::poll))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(99))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("Good Service")
+                .verifyComplete();
+
+        assertTrue(primaryCancelled.get());
+        assertEquals(1, count("sent"));
+        assertEquals(1, count("won"));
+    }
+
+    @Test
+    void execute_WaitsForHedgeWhenPrimaryFailsAfterIt() {
+        Sinks.One<String> primary = Sinks.one();
+        Sinks.One<String> hedge = Sinks.one();
+        attempts.addAll(List.of(primary.asMono(), hedge.asMono()));
+        RequestHedger hedger = hedger(100);
+
+        StepVerifier.withVirtualTime(() -> hedger.execute("lineStatus", attempts::poll))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(100))
+                .then(() -> primary.tryEmitError(new IllegalStateException("connection reset")))
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> hedge.tryEmitValue("Minor Delays"))
+                .expectNext("Minor Delays")
+                .verifyComplete();
+    }
+
+    @Test
+    void execute_SkipsHedgeWhenBreakerIsNotClosedOrBudgetIsSpent() {
+        RequestHedger hedger = hedger(0);
+        attempts.add(Mono.delay(Duration.ofMillis(200)).thenReturn("Good Service"));
+        StepVerifier.withVirtualTime(() -> hedger.execute("lineStatus", attempts::poll))
+                .thenAwait(Duration.ofMillis(200))
+                .expectNext("Good Service")
+                .verifyComplete();
+
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+        attempts.add(Mono.delay(Duration.ofMillis(200)).thenReturn("Good Service"));
+        StepVerifier.withVirtualTime(() -> hedger.execute("lineStatus", attempts::poll))
+                .thenAwait(Duration.ofMillis(200))
+                .expectNext("Good Service")
+                .verifyComplete();
+
+        assertEquals(1, count("skipped_budget"));
+        assertEquals(1, count("skipped_breaker"));
+        assertEquals(0, count("sent"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.ig.group.tfl.status.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+    private AtomicInteger upstreamCalls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry);
+        upstreamCalls = new AtomicInteger();
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("tfl.upstream.singleflight").tag("operation", "lineStatus")
+                .tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void execute_ConcurrentCallersShareOneUpstreamCall() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> first = singleFlight.execute("lineStatus", "central", () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<String> second = singleFlight.execute("lineStatus", "central", () -> {
+            upstreamCalls.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue("Good Service"))
+                .assertNext(results -> {
+                    assertEquals("Good Service", results.getT1());
+                    assertEquals("Good Service", results.getT2());
+                })
+                .verifyComplete();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(1, count("issued"));
+        assertEquals(1, count("coalesced"));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void execute_IssuesNewCallOnceFlightHasCompleted() {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(singleFlight.execute("lineStatus", "central", () -> {
+                upstreamCalls.incrementAndGet();
+                return Mono.just("Good Service");
+            })).expectNext("Good Service").verifyComplete();
+        }
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(2, count("issued"));
+    }
+
+    @Test
+    void execute_CancellingAllSubscribersCancelsAndForgetsTheFlight() {
+        AtomicInteger cancellations = new AtomicInteger();
+        Disposable subscriber = singleFlight.execute("lineStatus", "central",
+                () -> Mono.<String>never().doOnCancel(cancellations::incrementAndGet)).subscribe();
+
+        assertEquals(1, singleFlight.inFlightCount());
+        subscriber.dispose();
+
+        assertEquals(1, cancellations.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+}
@@ -1,26 +1,35 @@
 package com.ig.group.tfl.status.client;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 class TflApiClientTest {
 
     private TflApiClient tflApiClient;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> codecs.customCodecs().register(new TflLineDecoder()))
+                .build();
         ExchangeFunction exchangeFunction = clientRequest -> {
             String url = clientRequest.url().toString();
             String responseBody = "";
+            if (url.contains("/Line/broken/Status")) {
+                return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE, strategies).build());
+            }
 
             if (url.contains("/Line/central/Status")) {
                 responseBody = "[{\"id\":\"central\",\"name\":\"Central\",\"modeName\":\"tube\",\"lineStatuses\":[{\"statusSeverity\":10,\"statusSeverityDescription\":\"Good Service\"}]}]";
@@ -30,7 +39,7 @@ class TflApiClientTest {
                 responseBody = "[{\"id\":\"central\",\"name\":\"Central\"}, {\"id\":\"bakerloo\",\"name\":\"Bakerloo\"}]";
             }
 
-            return Mono.just(ClientResponse.create(HttpStatus.OK)
+            return Mono.just(ClientResponse.create(HttpStatus.OK, strategies)
                     .header("Content-Type", "application/json")
                     .body(responseBody)
                     .build());
@@ -38,44 +47,59 @@ class TflApiClientTest {
 
         WebClient webClient = WebClient.builder()
                 .baseUrl("http://mock")
+                .exchangeStrategies(strategies)
                 .exchangeFunction(exchangeFunction)
                 .build();
 
         // Testing without appId and appKey configuration logic path for simplicity
-        tflApiClient = new TflApiClient(webClient, "", "");
+        meterRegistry = new SimpleMeterRegistry();
+        tflApiClient = new TflApiClient(webClient, "", "", meterRegistry);
     }
 
     @Test
-    void getLineStatus_ReturnsFluxOfTflLineDto() {
+    void getLineStatus_ReturnsFluxOfLineInfo() {
         // Act & Assert
         StepVerifier.create(tflApiClient.getLineStatus("central"))
-                .assertNext(tflLineDto -> {
-                    assertEquals("central", tflLineDto.getId());
-                    assertEquals("tube", tflLineDto.getModeName());
-                    assertNotNull(tflLineDto.getLineStatuses());
-                    assertEquals(1, tflLineDto.getLineStatuses().size());
-                    assertEquals("Good Service", tflLineDto.getLineStatuses().get(0).getStatusSeverityDescription());
+                .assertNext(line -> {
+                    assertEquals("central", line.getId());
+                    assertEquals("Central", line.getName());
+                    assertEquals(1, line.getStatusesCount());
+                    assertEquals("Good Service", line.getStatuses(0).getStatusSeverityDescription());
                 })
                 .verifyComplete();
     }
 
     @Test
-    void getLineStatusWithDateRange_ReturnsFluxOfTflLineDto() {
+    void getLineStatusWithDateRange_ReturnsFluxOfLineInfo() {
         // Act & Assert
         StepVerifier.create(tflApiClient.getLineStatusWithDateRange("victoria", "2023-10-25", "2023-10-26"))
-                .assertNext(tflLineDto -> {
-                    assertEquals("victoria", tflLineDto.getId());
-                    assertEquals(1, tflLineDto.getLineStatuses().get(0).getStatusSeverity());
+                .assertNext(line -> {
+                    assertEquals("victoria", line.getId());
+                    assertEquals(1, line.getStatuses(0).getStatusSeverity());
                 })
                 .verifyComplete();
     }
 
     @Test
-    void getAllTubeLineStatuses_ReturnsFluxOfTflLineDto() {
+    void getAllTubeLineStatuses_ReturnsFluxOfLineInfo() {
         // Act & Assert
         StepVerifier.create(tflApiClient.getAllTubeLineStatuses())
                 .assertNext(dto -> assertEquals("central", dto.getId()))
                 .assertNext(dto -> assertEquals("bakerloo", dto.getId()))
                 .verifyComplete();
     }
+
+    @Test
+    void getLineStatus_TimesRequestsByEndpointAndOutcome() {
+        StepVerifier.create(tflApiClient.getLineStatus("central")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(tflApiClient.getLineStatus("broken")).verifyError(WebClientResponseException.class);
+        StepVerifier.create(tflApiClient.getAllTubeLineStatuses()).expectNextCount(2).verifyComplete();
+
+        assertEquals(1, meterRegistry.get("tfl.upstream.requests").tags("endpoint", "lineStatus", "outcome", "success")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("tfl.upstream.requests")
+                .tags("endpoint", "lineStatus", "outcome", "server_error").timer().count());
+        assertEquals(1, meterRegistry.get("tfl.upstream.requests").tags("endpoint", "allTube", "outcome", "success")
+                .timer().count());
+    }
 }
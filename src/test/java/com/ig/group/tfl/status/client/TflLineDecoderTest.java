@@ -0,0 +1,81 @@
+package com.ig.group.tfl.status.client;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.grpc.ValidityPeriod;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TflLineDecoderTest {
+
+    private static final String BODY = """
+            [{"$type":"Tfl.Api.Presentation.Entities.Line","id":"central","name":"Central","modeName":"tube",
+              "disruptions":[],"created":"2026-03-01T10:00:00Z",
+              "lineStatuses":[{"id":0,"statusSeverity":9,"statusSeverityDescription":"Minor Delays",
+                "reason":"Signal failure","validityPeriods":[{"fromDate":"2026-03-01T10:00:00Z",
+                "toDate":"2026-03-01T12:00:00Z","isNow":true}],
+                "disruption":{"category":"RealTime","affectedRoutes":[{"name":"lineStatuses","id":"x"}],
+                  "affectedStops":[[1,2],{"id":"statusSeverity"}]}}],
+              "routeSections":[{"name":"West Ruislip - Epping"}],"serviceTypes":[{"name":"Regular"}]},
+             {"id":"victoria","name":"Victoria","lineStatuses":[{"statusSeverity":10,
+               "statusSeverityDescription":"Good Service","reason":null}]}]
+            """;
+
+    private static final List<LineInfo> EXPECTED = List.of(
+            LineInfo.newBuilder().setId("central").setName("Central")
+                    .addStatuses(StatusInfo.newBuilder().setStatusSeverity(9)
+                            .setStatusSeverityDescription("Minor Delays")
+                            .setReason("Signal failure")
+                            .addValidityPeriods(ValidityPeriod.newBuilder().setFromDate("2026-03-01T10:00:00Z")
+                                    .setToDate("2026-03-01T12:00:00Z").setIsNow(true)))
+                    .build(),
+            LineInfo.newBuilder().setId("victoria").setName("Victoria")
+                    .addStatuses(StatusInfo.newBuilder().setStatusSeverity(10)
+                            .setStatusSeverityDescription("Good Service"))
+                    .build());
+
+    private final TflLineDecoder decoder = new TflLineDecoder();
+
+    private Flux<LineInfo> decode(String body, int chunkSize) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> chunks = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, bytes.length - offset);
+            byte[] chunk = new byte[length];
+            System.arraycopy(bytes, offset, chunk, 0, length);
+            chunks.add(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+        }
+        return decoder.decode(Flux.fromIterable(chunks), ResolvableType.forClass(LineInfo.class),
+                MediaType.APPLICATION_JSON, Map.of());
+    }
+
+    @Test
+    void decode_BuildsLineInfoSkippingUnusedSubtreesAtAnyChunkBoundary() {
+        for (int chunkSize : new int[] {1, 7, 64, BODY.length()}) {
+            StepVerifier.create(decode(BODY, chunkSize).collectList())
+                    .assertNext(lines -> assertEquals(EXPECTED, lines, "chunk size " + chunkSize))
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void decode_FailsOnTruncatedBody() {
+        StepVerifier.create(decode(BODY.substring(0, BODY.indexOf("Good Service")), 16))
+                .expectNext(EXPECTED.get(0))
+                .expectError(DecodingException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ig.group.tfl.status.config;
+
+import com.ig.group.tfl.status.client.TflApiClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class WebClientConfigTest {
+
+    private DisposableServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionProvider connectionProvider;
+    private TflApiClient client;
+
+    @BeforeEach
+    void setUp() {
+        // Accepts requests and never answers them, like a hung TfL socket
+        server = HttpServer.create().port(0).handle((request, response) -> Mono.never()).bindNow();
+        meterRegistry = new SimpleMeterRegistry();
+        WebClientConfig config = new WebClientConfig("http://localhost:" + server.port(), Duration.ofSeconds(1),
+                Duration.ofMillis(200), false);
+        connectionProvider = config.tflConnectionProvider(meterRegistry, 4, 10, Duration.ofSeconds(1),
+                Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ofSeconds(15));
+        WebClient webClient = config.tflWebClient(connectionProvider, ObservationRegistry.NOOP,
+                Duration.ofSeconds(60), Duration.ofSeconds(5), Duration.ofSeconds(2));
+        client = new TflApiClient(webClient, "", "", meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        server.disposeNow();
+    }
+
+    @Test
+    void tflWebClient_FailsHungResponseAfterResponseTimeoutAndExportsPoolGauges() {
+        StepVerifier.create(client.getLineStatus("central"))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(WebClientRequestException.class, e);
+                    assertInstanceOf(ReadTimeoutException.class, e.getCause());
+                })
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(1, meterRegistry.get("tfl.upstream.requests").tags("endpoint", "lineStatus", "outcome", "timeout")
+                .timer().count());
+        assertEquals(4, meterRegistry.get("tfl.api.pool.connections.max").tag("pool", WebClientConfig.POOL_NAME)
+                .gauge().value());
+        // The timed-out connection is closed and released asynchronously after the error is signalled
+        Gauge active = meterRegistry.get("tfl.api.pool.connections.active").gauge();
+        Mono<Double> idle = Mono.fromSupplier(active::value)
+                .filter(value -> value == 0)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(10)));
+        assertEquals(0.0, idle.block(Duration.ofSeconds(2)));
+    }
+}
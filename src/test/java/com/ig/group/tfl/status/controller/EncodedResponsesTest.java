@@ -0,0 +1,114 @@
+package com.ig.group.tfl.status.controller;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.service.StatusResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncodedResponsesTest {
+
+    private final EncodedResponses encodedResponses = new EncodedResponses();
+
+    private static StatusResult<LineStatusResponse> result(String reason) {
+        LineInfo line = LineInfo.newBuilder().setId("central").setName("Central")
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(6).setStatusSeverityDescription("Severe Delays")
+                        .setReason(reason))
+                .build();
+        return new StatusResult<>(LineStatusResponse.newBuilder().setLine(line).build(), Instant.now(), false);
+    }
+
+    private static HttpHeaders headers(String accept, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        if (accept != null) {
+            headers.set(HttpHeaders.ACCEPT, accept);
+        }
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return headers;
+    }
+
+    @Test
+    void toResponseEntity_ReusesEncodedBytesForTheSameMessage() {
+        StatusResult<LineStatusResponse> result = result("Signal failure");
+
+        ResponseEntity<byte[]> first = encodedResponses.toResponseEntity(result, headers(null, null));
+        ResponseEntity<byte[]> second = encodedResponses.toResponseEntity(result, headers(null, null));
+
+        assertEquals(MediaType.APPLICATION_JSON, first.getHeaders().getContentType());
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    }
+
+    @Test
+    void toResponseEntityOnce_EncodesEachTimeWithTheSameETag() {
+        StatusResult<LineStatusResponse> result = result("Signal failure");
+        HttpHeaders protobuf = headers("application/x-protobuf", null);
+
+        ResponseEntity<byte[]> first = encodedResponses.toResponseEntityOnce(result, protobuf);
+        ResponseEntity<byte[]> second = encodedResponses.toResponseEntityOnce(result, protobuf);
+
+        assertNotSame(first.getBody(), second.getBody());
+        assertArrayEquals(result.value().toByteArray(), first.getBody());
+        assertEquals(encodedResponses.toResponseEntity(result, protobuf).getHeaders().getETag(),
+                first.getHeaders().getETag());
+        assertEquals(MediaType.APPLICATION_JSON,
+                encodedResponses.toResponseEntityOnce(result, headers(null, null)).getHeaders().getContentType());
+    }
+
+    @Test
+    void toResponseEntity_NegotiatesProtobufAndGzip() throws IOException {
+        StatusResult<LineStatusResponse> result = result("x".repeat(400));
+
+        ResponseEntity<byte[]> protobuf = encodedResponses.toResponseEntity(result,
+                headers("application/x-protobuf", "gzip, deflate"));
+
+        assertEquals(EncodedResponses.PROTOBUF, protobuf.getHeaders().getContentType());
+        assertEquals("gzip", protobuf.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        byte[] inflated = new GZIPInputStream(new ByteArrayInputStream(protobuf.getBody())).readAllBytes();
+        assertArrayEquals(result.value().toByteArray(), inflated);
+
+        ResponseEntity<byte[]> json = encodedResponses.toResponseEntity(result, headers("*/*", "gzip;q=0"));
+        assertNull(json.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNotEquals(protobuf.getHeaders().getETag(), json.getHeaders().getETag());
+    }
+
+    @Test
+    void toResponseEntity_AnswersMatchingIfNoneMatchWithNotModified() {
+        StatusResult<LineStatusResponse> result = result("Signal failure");
+        String etag = encodedResponses.toResponseEntity(result, headers(null, null)).getHeaders().getETag();
+
+        HttpHeaders conditional = headers(null, null);
+        conditional.setIfNoneMatch(List.of("\"other\"", etag));
+        ResponseEntity<byte[]> notModified = encodedResponses.toResponseEntity(result("Signal failure"),
+                conditional);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(etag, notModified.getHeaders().getETag());
+
+        conditional.setIfNoneMatch(etag);
+        ResponseEntity<byte[]> changed = encodedResponses.toResponseEntity(result("Track fault"), conditional);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertTrue(changed.getBody().length > 0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.ig.group.tfl.status.controller;
+
+import com.ig.group.tfl.status.grpc.LineStatusRequest;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.grpc.TubeStatusServiceGrpc;
+import com.ig.group.tfl.status.ratelimit.ClientRateLimiter;
+import com.ig.group.tfl.status.ratelimit.LocalClientRateLimiter;
+import com.ig.group.tfl.status.ratelimit.RateDecision;
+import com.ig.group.tfl.status.ratelimit.RateLimitPolicy;
+import io.grpc.Attributes;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Sinks;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GrpcAdmissionInterceptorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServerCallHandler<LineStatusRequest, LineStatusResponse> next;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        next = mock(ServerCallHandler.class);
+        when(next.startCall(any(), any())).thenReturn(new ServerCall.Listener<>() {
+        });
+    }
+
+    private GrpcAdmissionInterceptor interceptor(int limit, int maxInFlight) {
+        return new GrpcAdmissionInterceptor(
+                new LocalClientRateLimiter(new RateLimitPolicy(limit, Duration.ofMinutes(1)), 100), false,
+                maxInFlight, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<LineStatusRequest, LineStatusResponse> call(String peerAddress) {
+        ServerCall<LineStatusRequest, LineStatusResponse> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(TubeStatusServiceGrpc.getGetLineStatusMethod());
+        when(call.getAttributes()).thenReturn(Attributes.newBuilder()
+                .set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, new InetSocketAddress(peerAddress, 50000))
+                .build());
+        return call;
+    }
+
+    private double count(String outcome) {
+        return meterRegistry.get("grpc.server.admission").tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void interceptCall_RejectsPeerOverBudgetBeforeStartingCall() {
+        GrpcAdmissionInterceptor interceptor = interceptor(1, 10);
+        interceptor.interceptCall(call("10.0.0.1"), new Metadata(), next);
+
+        ServerCall<LineStatusRequest, LineStatusResponse> rejected = call("10.0.0.1");
+        interceptor.interceptCall(rejected, new Metadata(), next);
+        interceptor.interceptCall(call("10.0.0.2"), new Metadata(), next);
+
+        ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+        ArgumentCaptor<Metadata> trailers = ArgumentCaptor.forClass(Metadata.class);
+        verify(rejected).close(status.capture(), trailers.capture());
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, status.getValue().getCode());
+        assertEquals("60", trailers.getValue().get(GrpcAdmissionInterceptor.RETRY_AFTER_TRAILER));
+        verify(next, times(2)).startCall(any(), any());
+        assertEquals(1, count("rejected_rate_limit"));
+        assertEquals(2, count("admitted"));
+    }
+
+    @Test
+    void interceptCall_CapsUnaryCallsInFlightUntilOneCompletes() {
+        GrpcAdmissionInterceptor interceptor = interceptor(100, 1);
+        ServerCall.Listener<LineStatusRequest> first = interceptor.interceptCall(call("10.0.0.1"), new Metadata(),
+                next);
+
+        ServerCall<LineStatusRequest, LineStatusResponse> rejected = call("10.0.0.2");
+        interceptor.interceptCall(rejected, new Metadata(), next);
+        verify(rejected).close(any(), any());
+        assertEquals(1, count("rejected_in_flight"));
+
+        first.onComplete();
+        assertEquals(0, interceptor.inFlight());
+        ServerCall<LineStatusRequest, LineStatusResponse> admitted = call("10.0.0.2");
+        interceptor.interceptCall(admitted, new Metadata(), next);
+        verify(admitted, never()).close(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void interceptCall_HoldsCallEventsUntilAnAsynchronousDecision() {
+        ClientRateLimiter rateLimiter = mock(ClientRateLimiter.class);
+        Sinks.One<RateDecision> decision = Sinks.one();
+        when(rateLimiter.tryAcquire(anyString())).thenReturn(decision.asMono());
+        ServerCall.Listener<LineStatusRequest> started = mock(ServerCall.Listener.class);
+        AtomicReference<Thread> startedOn = new AtomicReference<>();
+        when(next.startCall(any(), any())).thenAnswer(invocation -> {
+            startedOn.set(Thread.currentThread());
+            return started;
+        });
+        GrpcAdmissionInterceptor interceptor = new GrpcAdmissionInterceptor(rateLimiter, false, 10, meterRegistry);
+
+        ServerCall.Listener<LineStatusRequest> listener = interceptor.interceptCall(call("10.0.0.1"),
+                new Metadata(), next);
+        listener.onReady();
+        verify(next, never()).startCall(any(), any());
+
+        decision.tryEmitValue(RateDecision.ALLOWED);
+        verify(started, timeout(1000)).onReady();
+        verify(next).startCall(any(), any());
+        // Not on the thread that delivered the decision, which for Redis is its I/O thread
+        assertNotEquals(Thread.currentThread(), startedOn.get());
+        listener.onComplete();
+        verify(started, timeout(1000)).onComplete();
+        assertEquals(0, interceptor.inFlight());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ig.group.tfl.status.controller;
+
+import com.ig.group.tfl.status.cache.ReactiveValueCache;
+import com.ig.group.tfl.status.client.AdaptiveConcurrencyLimiter;
+import com.ig.group.tfl.status.client.HedgePolicy;
+import com.ig.group.tfl.status.client.RequestHedger;
+import com.ig.group.tfl.status.client.SingleFlight;
+import com.ig.group.tfl.status.client.TflApiClient;
+import com.ig.group.tfl.status.client.UpstreamOverloadedException;
+import com.ig.group.tfl.status.grpc.LineStatusRequest;
+import com.ig.group.tfl.status.grpc.LineStatusResponse;
+import com.ig.group.tfl.status.service.LineFreshness;
+import com.ig.group.tfl.status.service.TflStatusService;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TubeStatusGrpcServiceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getLineStatus_ReportsUnavailableWhenTheConcurrencyLimiterShedsTheCall() {
+        TflApiClient tflApiClient = mock(TflApiClient.class);
+        when(tflApiClient.getLineStatus(anyString())).thenReturn(Flux.never());
+        TubeSnapshotHolder snapshotHolder = new TubeSnapshotHolder(SeverityTable.defaults());
+        Duration ttl = Duration.ofMinutes(1);
+        // One slot and no queue: a second TfL call while the first is in flight is shed
+        TflStatusService statusService = new TflStatusService(tflApiClient,
+                new SingleFlight(new SimpleMeterRegistry()),
+                new RequestHedger(HedgePolicy.disabled(), CircuitBreaker.ofDefaults("tflApi"),
+                        new SimpleMeterRegistry()),
+                new AdaptiveConcurrencyLimiter(true, 1, 1, 1, 0, Duration.ofSeconds(1), new SimpleMeterRegistry()),
+                new ReactiveValueCache<>("lineStatus", ttl, 100),
+                new ReactiveValueCache<>("futureStatus", ttl, 100),
+                new ReactiveValueCache<>("unplannedDisruptions", ttl, 100),
+                snapshotHolder,
+                new LineFreshness(snapshotHolder, new SimpleMeterRegistry(), 64),
+                SeverityTable.defaults(),
+                60,
+                Duration.ofMinutes(5),
+                CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                        .ignoreExceptions(UpstreamOverloadedException.class).build()),
+                RetryRegistry.of(RetryConfig.custom()
+                        .ignoreExceptions(UpstreamOverloadedException.class).build()));
+        TubeStatusGrpcService grpcService = new TubeStatusGrpcService(statusService, null, null);
+
+        grpcService.getLineStatus(LineStatusRequest.newBuilder().setLineId("central").build(),
+                mock(StreamObserver.class));
+        StreamObserver<LineStatusResponse> shed = mock(StreamObserver.class);
+        grpcService.getLineStatus(LineStatusRequest.newBuilder().setLineId("victoria").build(), shed);
+
+        ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        verify(shed, timeout(1000)).onError(error.capture());
+        verify(shed, never()).onNext(any());
+        assertEquals(Status.Code.UNAVAILABLE, Status.fromThrowable(error.getValue()).getCode());
+    }
+}
@@ -0,0 +1,167 @@
+package com.ig.group.tfl.status.history;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.LineStatusChange;
+import com.ig.group.tfl.status.grpc.LineStatusHistoryResponse;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.grpc.ValidityPeriod;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LineStatusHistoryTest {
+
+    private static final Instant SIX_AM = Instant.parse("2026-10-17T06:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    private TubeSnapshotHolder snapshotHolder;
+
+    @BeforeEach
+    void setUp() {
+        snapshotHolder = new TubeSnapshotHolder(SeverityTable.defaults());
+    }
+
+    private static StatusInfo status(int severity, String description, String reason) {
+        return StatusInfo.newBuilder().setStatusSeverity(severity).setStatusSeverityDescription(description)
+                .setReason(reason)
+                .addValidityPeriods(ValidityPeriod.newBuilder().setFromDate("2026-10-17T00:00:00Z"))
+                .build();
+    }
+
+    private void poll(LineStatusHistory history, int minutesAfterSixAm, StatusInfo... northern) {
+        history.record(snapshotHolder.publish(List.of(
+                LineInfo.newBuilder().setId("northern").setName("Northern").addAllStatuses(List.of(northern)).build(),
+                LineInfo.newBuilder().setId("central").setName("Central")
+                        .addStatuses(status(10, "Good Service", "")).build()),
+                SIX_AM.plusSeconds(minutesAfterSixAm * 60L)));
+    }
+
+    private static List<String> descriptions(LineStatusChange change) {
+        return change.getStatusesList().stream().map(StatusInfo::getStatusSeverityDescription).toList();
+    }
+
+    @Test
+    void query_ReturnsChangesInRangeWithTheStatusInEffectAtItsStart() {
+        LineStatusHistory history = new LineStatusHistory(snapshotHolder, 16, 8, false, null);
+        poll(history, 0, status(10, "Good Service", ""));
+        poll(history, 30, status(6, "Severe Delays", "Signal failure at Camden Town"),
+                status(11, "Part Closed", "No service to Mill Hill East"));
+        poll(history, 31, status(6, "Severe Delays", "Signal failure at Camden Town"),
+                status(11, "Part Closed", "No service to Mill Hill East"));
+        poll(history, 90, status(9, "Minor Delays", "Signal failure at Camden Town"));
+        poll(history, 120, status(10, "Good Service", ""));
+
+        LineStatusHistoryResponse response = history.query("Northern", "2026-10-17T06:45:00Z",
+                "2026-10-17T07:30:00Z").value();
+
+        assertEquals("northern", response.getLineId());
+        assertFalse(response.getTruncated());
+        assertEquals(2, response.getChangesCount());
+        assertEquals(SIX_AM.plusSeconds(30 * 60).getEpochSecond(), response.getChanges(0).getChangedAtEpochSeconds());
+        assertEquals(List.of("Severe Delays", "Part Closed"), descriptions(response.getChanges(0)));
+        assertEquals(0, response.getChanges(0).getStatuses(0).getValidityPeriodsCount());
+        assertEquals(11, response.getChanges(0).getStatuses(1).getStatusSeverity());
+        assertEquals(List.of("Minor Delays"), descriptions(response.getChanges(1)));
+
+        assertEquals(4, history.query("northern", "", "").value().getChangesCount());
+        assertEquals(1, history.query("central", "", "").value().getChangesCount());
+        assertThrows(IllegalArgumentException.class, () -> history.query("northern", "07:00", ""));
+        assertThrows(IllegalArgumentException.class,
+                () -> history.query("northern", "2026-10-17T08:00:00Z", "2026-10-17T07:00:00Z"));
+    }
+
+    @Test
+    void query_StartsWithTheChangeMadeExactlyAtFrom() {
+        LineStatusHistory history = new LineStatusHistory(snapshotHolder, 16, 8, false, null);
+        poll(history, 0, status(10, "Good Service", ""));
+        poll(history, 30, status(6, "Severe Delays", "Signal failure at Camden Town"),
+                status(11, "Part Closed", "No service to Mill Hill East"));
+        poll(history, 90, status(9, "Minor Delays", "Signal failure at Camden Town"));
+
+        LineStatusHistoryResponse response = history.query("northern", "2026-10-17T06:30:00Z",
+                "2026-10-17T07:30:00Z").value();
+
+        assertEquals(2, response.getChangesCount());
+        assertEquals(List.of("Severe Delays", "Part Closed"), descriptions(response.getChanges(0)));
+        assertEquals(List.of("Minor Delays"), descriptions(response.getChanges(1)));
+    }
+
+    @Test
+    void record_EvictsOldestChangesOnceFullAndReleasesTheirReasons() {
+        LineStatusHistory history = new LineStatusHistory(snapshotHolder, 3, 8, false, null);
+        poll(history, 0, status(10, "Good Service", ""));
+        poll(history, 10, status(6, "Severe Delays", "Signal failure"), status(11, "Part Closed", "Engineering"));
+        poll(history, 20, status(9, "Minor Delays", "Train cancellations"));
+        poll(history, 30, status(10, "Good Service", ""));
+
+        LineStatusHistoryResponse response = history.query("northern", "", "").value();
+
+        // The first status of the 06:10 change has been evicted, so what is left of it is skipped
+        assertTrue(response.getTruncated());
+        assertEquals(2, response.getChangesCount());
+        assertEquals(List.of("Minor Delays"), descriptions(response.getChanges(0)));
+        assertEquals(List.of("Good Service"), descriptions(response.getChanges(1)));
+        // Severe Delays is no longer referenced by any line's history
+        assertEquals(3, history.internedReasons());
+    }
+
+    @Test
+    void start_ReplaysSpilledChangesAndDropsATornTrailingRecord() throws Exception {
+        Path spill = directory.resolve("history.bin");
+        LineStatusHistory before = new LineStatusHistory(snapshotHolder, 16, 8, true, spill);
+        poll(before, 0, status(10, "Good Service", ""));
+        poll(before, 30, status(6, "Severe Delays", "Signal failure"));
+        before.stop();
+        byte[] bytes = Files.readAllBytes(spill);
+        Files.write(spill, new byte[] {42, 1, 2}, StandardOpenOption.APPEND);
+
+        LineStatusHistory after = new LineStatusHistory(new TubeSnapshotHolder(SeverityTable.defaults()), 16, 8, true,
+                spill);
+        after.start();
+        after.stop();
+
+        LineStatusHistoryResponse response = after.query("northern", "", "").value();
+        assertEquals(2, response.getChangesCount());
+        assertEquals(List.of("Severe Delays"), descriptions(response.getChanges(1)));
+        assertEquals(bytes.length, Files.size(spill));
+    }
+
+    @Test
+    void start_RewritesSpillWithRetainedChangesAndStopEndsSpilling() throws Exception {
+        Path spill = directory.resolve("history.bin");
+        LineStatusHistory before = new LineStatusHistory(snapshotHolder, 2, 8, true, spill);
+        for (int minute = 0; minute < 6; minute++) {
+            poll(before, minute, minute % 2 == 0 ? status(10, "Good Service", "") : status(9, "Minor Delays", ""));
+        }
+        before.stop();
+        long spilled = Files.size(spill);
+
+        LineStatusHistory after = new LineStatusHistory(new TubeSnapshotHolder(SeverityTable.defaults()), 2, 8, true,
+                spill);
+        after.start();
+        after.stop();
+        assertTrue(Files.size(spill) < spilled);
+        LineStatusHistoryResponse response = after.query("northern", "", "").value();
+        assertEquals(2, response.getChangesCount());
+        assertEquals(List.of("Minor Delays"), descriptions(response.getChanges(1)));
+
+        Files.delete(spill);
+        poll(after, 10, status(6, "Severe Delays", "Signal failure"));
+        assertFalse(Files.exists(spill));
+    }
+}
@@ -0,0 +1,66 @@
+package com.ig.group.tfl.status.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MeteredAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    @Test
+    void append_CountsEventsDroppedWhileTheWriterIsStalled() throws InterruptedException {
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        CountDownLatch writerStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> stalled = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                writerStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        stalled.setContext(context);
+        stalled.start();
+        MeteredAsyncAppender appender = new MeteredAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(2);
+        appender.setNeverBlock(true);
+        appender.addAppender(stalled);
+        appender.start();
+
+        // Taken by the worker, which then stalls
+        appender.doAppend(event(Level.INFO));
+        writerStarted.await(5, TimeUnit.SECONDS);
+        // Three INFO events leave less than the discarding threshold free; the next INFO is discarded
+        for (int i = 0; i < 4; i++) {
+            appender.doAppend(event(Level.INFO));
+        }
+        // An error takes the last slot, and the next one no longer fits
+        appender.doAppend(event(Level.ERROR));
+        appender.doAppend(event(Level.ERROR));
+
+        assertEquals(1, appender.discardedCount());
+        assertEquals(1, appender.queueFullCount());
+        release.countDown();
+        appender.stop();
+    }
+
+    private LoggingEvent event(Level level) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, "Line status", null, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ig.group.tfl.status.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RequestLogTest {
+
+    private final RequestLog requestLog = new RequestLog(0, Map.of("streamLineStatus", 1.0), Duration.ofMillis(50));
+
+    @Test
+    void decide_AlwaysLogsFailedAndSlowRequestsAndSamplesTheRestPerEndpoint() {
+        assertNull(requestLog.decide("getLineStatus", false, false));
+        assertEquals(RequestLog.Reason.SAMPLED, requestLog.decide("streamLineStatus", false, false));
+        assertEquals(RequestLog.Reason.ERROR, requestLog.decide("getLineStatus", true, false));
+        assertEquals(RequestLog.Reason.SLOW, requestLog.decide("getLineStatus", false, true));
+    }
+}
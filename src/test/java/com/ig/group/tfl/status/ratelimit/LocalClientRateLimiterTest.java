@@ -0,0 +1,65 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalClientRateLimiterTest {
+
+    private AtomicLong nanoTime;
+    private LocalClientRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        nanoTime = new AtomicLong(1_000_000_000L);
+        rateLimiter = new LocalClientRateLimiter(new RateLimitPolicy(3, Duration.ofSeconds(3)), 100, nanoTime::get);
+    }
+
+    @Test
+    void acquire_AllowsBurstUpToLimitThenReportsRefillTime() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.acquire("10.0.0.1").allowed());
+        }
+
+        RateDecision rejected = rateLimiter.acquire("10.0.0.1");
+
+        assertFalse(rejected.allowed());
+        assertEquals(Duration.ofSeconds(1), rejected.retryAfter());
+    }
+
+    @Test
+    void acquire_RefillsOneRequestPerEmissionInterval() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("10.0.0.1");
+        }
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertTrue(rateLimiter.acquire("10.0.0.1").allowed());
+        assertFalse(rateLimiter.acquire("10.0.0.1").allowed());
+    }
+
+    @Test
+    void acquire_KeepsSeparateBudgetsPerClient() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("10.0.0.1");
+        }
+
+        assertFalse(rateLimiter.acquire("10.0.0.1").allowed());
+        assertTrue(rateLimiter.acquire("10.0.0.2").allowed());
+    }
+
+    @Test
+    void retryAfterSeconds_RoundsUpToWholeSeconds() {
+        RateLimitPolicy policy = new RateLimitPolicy(100, Duration.ofMinutes(1));
+
+        assertEquals(1, new ClientRateLimitExceededException(policy, Duration.ofMillis(600)).retryAfterSeconds());
+        assertEquals(2, new ClientRateLimitExceededException(policy, Duration.ofMillis(1001)).retryAfterSeconds());
+    }
+}
@@ -0,0 +1,60 @@
+package com.ig.group.tfl.status.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import redis.embedded.RedisServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisClientRateLimiterTest {
+
+    private static final int PORT = 6391;
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", PORT);
+        connectionFactory.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    private static RedisClientRateLimiter rateLimiter(RateLimitPolicy policy) {
+        return new RedisClientRateLimiter(new ReactiveStringRedisTemplate(connectionFactory), "test", Duration.ofSeconds(2),
+                new LocalClientRateLimiter(policy, 100));
+    }
+
+    @Test
+    void tryAcquire_SharesOneBudgetAcrossInstances() {
+        RateLimitPolicy policy = new RateLimitPolicy(2, Duration.ofMinutes(1));
+        RedisClientRateLimiter replicaA = rateLimiter(policy);
+        RedisClientRateLimiter replicaB = rateLimiter(policy);
+
+        StepVerifier.create(replicaA.tryAcquire("10.0.0.9"))
+                .assertNext(decision -> assertTrue(decision.allowed()))
+                .verifyComplete();
+        StepVerifier.create(replicaB.tryAcquire("10.0.0.9"))
+                .assertNext(decision -> assertTrue(decision.allowed()))
+                .verifyComplete();
+        StepVerifier.create(replicaA.tryAcquire("10.0.0.9"))
+                .assertNext(decision -> {
+                    assertFalse(decision.allowed());
+                    assertTrue(decision.retryAfter().compareTo(Duration.ofSeconds(25)) > 0);
+                })
+                .verifyComplete();
+    }
+}
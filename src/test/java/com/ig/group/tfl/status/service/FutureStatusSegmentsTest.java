@@ -0,0 +1,85 @@
+package com.ig.group.tfl.status.service;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.grpc.ValidityPeriod;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FutureStatusSegmentsTest {
+
+    private static StatusInfo status(String description, String from, String to) {
+        return StatusInfo.newBuilder().setStatusSeverity(9).setStatusSeverityDescription(description)
+                .addValidityPeriods(ValidityPeriod.newBuilder().setFromDate(from).setToDate(to))
+                .build();
+    }
+
+    @Test
+    void splitByDay_AssignsStatusesToTheDaysTheirPeriodsOverlapAndMergeKeepsEachOnce() {
+        StatusInfo weekend = status("Weekend closure", "2026-03-07T00:30:00Z", "2026-03-09T04:00:00Z");
+        StatusInfo monday = status("Minor Delays", "2026-03-09T07:00:00Z", "2026-03-09T10:00:00Z");
+        LineInfo line = LineInfo.newBuilder().setId("central").addStatuses(weekend).addStatuses(monday).build();
+
+        Map<LocalDate, LineInfo> segments = FutureStatusSegments.splitByDay(line, LocalDate.parse("2026-03-06"),
+                LocalDate.parse("2026-03-09"));
+
+        assertEquals(0, segments.get(LocalDate.parse("2026-03-06")).getStatusesCount());
+        assertEquals(List.of(weekend), segments.get(LocalDate.parse("2026-03-08")).getStatusesList());
+        assertEquals(List.of(weekend, monday), segments.get(LocalDate.parse("2026-03-09")).getStatusesList());
+        assertEquals(List.of(weekend, monday),
+                FutureStatusSegments.merge(List.copyOf(segments.values())).getStatusesList());
+    }
+
+    @Test
+    void splitByDay_PutsAPeriodCrossingMidnightOnBothDays() {
+        StatusInfo overnight = status("Part Closure", "2026-03-10T23:00:00Z", "2026-03-11T02:00:00Z");
+        LineInfo line = LineInfo.newBuilder().setId("central").addStatuses(overnight).build();
+
+        Map<LocalDate, LineInfo> segments = FutureStatusSegments.splitByDay(line, LocalDate.parse("2026-03-10"),
+                LocalDate.parse("2026-03-12"));
+
+        assertEquals(List.of(overnight), segments.get(LocalDate.parse("2026-03-10")).getStatusesList());
+        assertEquals(List.of(overnight), segments.get(LocalDate.parse("2026-03-11")).getStatusesList());
+        assertEquals(0, segments.get(LocalDate.parse("2026-03-12")).getStatusesCount());
+    }
+
+    @Test
+    void splitByDay_UsesLondonDaysAcrossTheBritishSummerTimeChangeovers() {
+        // 29 March 2026 is 23 hours long in London, ending at 23:00 UTC
+        StatusInfo afterSpringMidnight = status("Minor Delays", "2026-03-29T23:30:00Z", "2026-03-30T01:00:00Z");
+        // 25 October 2026 is 25 hours long, starting at 23:00 UTC on the 24th
+        StatusInfo autumnStart = status("Minor Delays", "2026-10-24T23:15:00Z", "2026-10-24T23:45:00Z");
+        StatusInfo autumnEnd = status("Minor Delays", "2026-10-25T23:15:00Z", "2026-10-25T23:45:00Z");
+        StatusInfo localTime = status("Part Closure", "2026-03-29T00:30:00", "2026-03-29T03:30:00");
+        LineInfo spring = LineInfo.newBuilder().setId("central")
+                .addStatuses(afterSpringMidnight).addStatuses(localTime).build();
+        LineInfo autumn = LineInfo.newBuilder().setId("central")
+                .addStatuses(autumnStart).addStatuses(autumnEnd).build();
+
+        Map<LocalDate, LineInfo> springDays = FutureStatusSegments.splitByDay(spring, LocalDate.parse("2026-03-28"),
+                LocalDate.parse("2026-03-30"));
+        Map<LocalDate, LineInfo> autumnDays = FutureStatusSegments.splitByDay(autumn, LocalDate.parse("2026-10-24"),
+                LocalDate.parse("2026-10-26"));
+
+        assertEquals(0, springDays.get(LocalDate.parse("2026-03-28")).getStatusesCount());
+        assertEquals(List.of(localTime), springDays.get(LocalDate.parse("2026-03-29")).getStatusesList());
+        assertEquals(List.of(afterSpringMidnight), springDays.get(LocalDate.parse("2026-03-30")).getStatusesList());
+        assertEquals(0, autumnDays.get(LocalDate.parse("2026-10-24")).getStatusesCount());
+        assertEquals(List.of(autumnStart, autumnEnd), autumnDays.get(LocalDate.parse("2026-10-25")).getStatusesList());
+        assertEquals(0, autumnDays.get(LocalDate.parse("2026-10-26")).getStatusesCount());
+    }
+
+    @Test
+    void days_AllowsAtMostThirtyOneDays() {
+        assertEquals(31, FutureStatusSegments.days("2026-03-15", "2026-04-14").size());
+        assertEquals(1, FutureStatusSegments.days("2026-03-29", "2026-03-29").size());
+        assertThrows(IllegalArgumentException.class, () -> FutureStatusSegments.days("2026-03-15", "2026-04-15"));
+        assertThrows(IllegalArgumentException.class, () -> FutureStatusSegments.days("2026-03-15", "2026-03-14"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.ig.group.tfl.status.service;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LineFreshnessTest {
+
+    private TubeSnapshotHolder snapshotHolder;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        snapshotHolder = new TubeSnapshotHolder(SeverityTable.defaults());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private double age(String lineId) {
+        return meterRegistry.get(LineFreshness.METRIC_NAME).tag("line", lineId).gauge().value();
+    }
+
+    @Test
+    void gauge_ReportsTheNewerOfSnapshotAndOnDemandRefresh() {
+        LineFreshness freshness = new LineFreshness(snapshotHolder, meterRegistry, 64);
+        freshness.start();
+        Instant now = Instant.now();
+        snapshotHolder.publish(List.of(LineInfo.newBuilder().setId("central").build(),
+                LineInfo.newBuilder().setId("victoria").build()), now.minusSeconds(30));
+
+        freshness.refreshed("DLR", now.minusSeconds(5));
+        freshness.refreshed("central", now.minusSeconds(2));
+        freshness.refreshed("victoria", now.minusSeconds(300));
+
+        assertEquals(5, age("dlr"), 1);
+        assertEquals(2, age("central"), 1);
+        assertEquals(30, age("victoria"), 1);
+        freshness.stop();
+    }
+
+    @Test
+    void refreshed_TracksNoMoreThanMaxLines() {
+        LineFreshness freshness = new LineFreshness(snapshotHolder, meterRegistry, 2);
+        freshness.refreshed("central", Instant.now());
+        freshness.refreshed("dlr", Instant.now());
+        freshness.refreshed("elizabeth", Instant.now());
+        freshness.refreshed("", Instant.now());
+
+        assertEquals(2, meterRegistry.find(LineFreshness.METRIC_NAME).gauges().size());
+    }
+}
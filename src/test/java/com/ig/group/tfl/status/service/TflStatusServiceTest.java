@@ -0,0 +1,287 @@
+package com.ig.group.tfl.status.service;
+
+import com.ig.group.tfl.status.cache.ReactiveValueCache;
+import com.ig.group.tfl.status.client.AdaptiveConcurrencyLimiter;
+import com.ig.group.tfl.status.client.HedgePolicy;
+import com.ig.group.tfl.status.client.RequestHedger;
+import com.ig.group.tfl.status.client.SingleFlight;
+import com.ig.group.tfl.status.client.TflApiClient;
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import com.ig.group.tfl.status.snapshot.TubeSnapshotHolder;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TflStatusServiceTest {
+
+    private TflApiClient tflApiClient;
+    private TubeSnapshotHolder snapshotHolder;
+    private TflStatusService statusService;
+    private MutableClock clock;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private SimpleMeterRegistry freshnessRegistry;
+
+    @BeforeEach
+    void setUp() {
+        tflApiClient = mock(TflApiClient.class);
+        snapshotHolder = new TubeSnapshotHolder(SeverityTable.defaults());
+        Duration ttl = Duration.ofMinutes(1);
+        clock = new MutableClock();
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        freshnessRegistry = new SimpleMeterRegistry();
+        statusService = new TflStatusService(tflApiClient,
+                new SingleFlight(new SimpleMeterRegistry()),
+                new RequestHedger(HedgePolicy.disabled(), CircuitBreaker.ofDefaults("tflApi"),
+                        new SimpleMeterRegistry()),
+                new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 0, Duration.ZERO, new SimpleMeterRegistry()),
+                new ReactiveValueCache<>("lineStatus", ttl, 100),
+                new ReactiveValueCache<>("futureStatus", ttl, Duration.ofMinutes(5), 100, null, clock),
+                new ReactiveValueCache<>("unplannedDisruptions", ttl, 100),
+                snapshotHolder,
+                new LineFreshness(snapshotHolder, freshnessRegistry, 64),
+                SeverityTable.defaults(),
+                60,
+                Duration.ofMinutes(5),
+                circuitBreakerRegistry,
+                RetryRegistry.ofDefaults());
+    }
+
+    private static LineInfo line(String id, int severity, String description) {
+        return LineInfo.newBuilder().setId(id).setName(id)
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(severity)
+                        .setStatusSeverityDescription(description))
+                .build();
+    }
+
+    @Test
+    void getLineStatus_CachesUpstreamResponse() {
+        when(tflApiClient.getLineStatus("central")).thenReturn(Flux.just(line("central", 10, "Good Service")));
+
+        StepVerifier.create(statusService.getLineStatus("central"))
+                .assertNext(result -> assertEquals("central", result.value().getLine().getId()))
+                .verifyComplete();
+        StepVerifier.create(statusService.getLineStatus("Central "))
+                .assertNext(result -> assertEquals("central", result.value().getLine().getId()))
+                .verifyComplete();
+
+        verify(tflApiClient, times(1)).getLineStatus("central");
+        verify(tflApiClient, times(1)).getLineStatus(anyString());
+    }
+
+    @Test
+    void getLineStatuses_ResolvesDuplicatesOnceWithOneUpstreamCallForMisses() {
+        snapshotHolder.publish(List.of(line("central", 10, "Good Service")), Instant.now());
+        when(tflApiClient.getLineStatuses(List.of("dlr", "elizabeth"))).thenReturn(
+                Flux.just(line("dlr", 10, "Good Service"), line("elizabeth", 6, "Severe Delays")));
+
+        StepVerifier.create(statusService.getLineStatuses(List.of("DLR", "central", "elizabeth", "dlr")))
+                .assertNext(result -> assertEquals(List.of("dlr", "central", "elizabeth"),
+                        result.value().getLinesList().stream().map(LineInfo::getId).toList()))
+                .verifyComplete();
+        StepVerifier.create(statusService.getLineStatuses(List.of("elizabeth", "dlr")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        verify(tflApiClient, times(1)).getLineStatuses(List.of("dlr", "elizabeth"));
+        verify(tflApiClient, never()).getLineStatus(anyString());
+    }
+
+    @Test
+    void getLineStatuses_UnknownIdIsAskedOnceAndNeitherRetriedNorRecordedByTheBreaker() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        WebClientResponseException notFound = WebClientResponseException.create(404, "Not Found", null, null, null);
+        when(tflApiClient.getLineStatuses(List.of("central", "atlantis"))).thenReturn(
+                Flux.<LineInfo>error(notFound).doOnSubscribe(s -> upstreamCalls.incrementAndGet()));
+        when(tflApiClient.getLineStatus("central")).thenReturn(
+                Flux.just(line("central", 10, "Good Service")).doOnSubscribe(s -> upstreamCalls.incrementAndGet()));
+        when(tflApiClient.getLineStatus("atlantis")).thenReturn(
+                Flux.<LineInfo>error(notFound).doOnSubscribe(s -> upstreamCalls.incrementAndGet()));
+
+        StepVerifier.create(statusService.getLineStatuses(List.of("central", "atlantis")))
+                .expectError(WebClientResponseException.NotFound.class)
+                .verify();
+
+        // The batch, then each line on its own
+        assertEquals(3, upstreamCalls.get());
+        assertEquals(0, circuitBreakerRegistry.circuitBreaker("tflApi").getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void getLineStatus_DoesNotTrackFreshnessOfThePlaceholderForAnEmptyAnswer() {
+        when(tflApiClient.getLineStatus("atlantis")).thenReturn(Flux.empty());
+
+        StepVerifier.create(statusService.getLineStatus("atlantis"))
+                .assertNext(result -> assertEquals("unknown", result.value().getLine().getId()))
+                .verifyComplete();
+
+        assertTrue(freshnessRegistry.find(LineFreshness.METRIC_NAME).gauges().isEmpty());
+    }
+
+    @Test
+    void getFutureLineStatus_FetchesOnlyDaysMissingFromEarlierRanges() {
+        when(tflApiClient.getLineStatusWithDateRange(anyString(), anyString(), anyString()))
+                .thenReturn(Flux.just(line("central", 9, "Minor Delays")));
+
+        StepVerifier.create(statusService.getFutureLineStatus("central", "2026-03-01", "2026-03-03"))
+                .assertNext(result -> assertEquals(1, result.value().getLine().getStatusesCount()))
+                .verifyComplete();
+        StepVerifier.create(statusService.getFutureLineStatus("Central", "2026-03-02", "2026-03-05"))
+                .assertNext(result -> assertEquals("central", result.value().getLine().getId()))
+                .verifyComplete();
+
+        verify(tflApiClient).getLineStatusWithDateRange("central", "2026-03-01", "2026-03-03");
+        verify(tflApiClient).getLineStatusWithDateRange("central", "2026-03-04", "2026-03-05");
+        verify(tflApiClient, times(2)).getLineStatusWithDateRange(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getFutureLineStatus_RefreshesStaleDaysWithOneRequestPerRun() {
+        when(tflApiClient.getLineStatusWithDateRange(anyString(), anyString(), anyString()))
+                .thenReturn(Flux.just(line("central", 9, "Minor Delays")));
+        StepVerifier.create(statusService.getFutureLineStatus("central", "2026-03-01", "2026-03-07"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        clock.advance(Duration.ofSeconds(90));
+        StepVerifier.create(statusService.getFutureLineStatus("central", "2026-03-01", "2026-03-07"))
+                .assertNext(result -> assertTrue(result.stale()))
+                .verifyComplete();
+        StepVerifier.create(statusService.getFutureLineStatus("central", "2026-03-01", "2026-03-07"))
+                .assertNext(result -> assertFalse(result.stale()))
+                .verifyComplete();
+
+        verify(tflApiClient, times(2)).getLineStatusWithDateRange("central", "2026-03-01", "2026-03-07");
+        verify(tflApiClient, times(2)).getLineStatusWithDateRange(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getFutureLineStatus_RejectsReversedRangeWithoutUpstreamCall() {
+        assertThrows(IllegalArgumentException.class,
+                () -> statusService.getFutureLineStatus("central", "2026-03-05", "2026-03-01"));
+        assertThrows(IllegalArgumentException.class,
+                () -> statusService.getFutureLineStatus("central", "tomorrow", "2026-03-01"));
+
+        verify(tflApiClient, never()).getLineStatusWithDateRange(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getLineStatus_ServesTubeLinesFromSnapshotWithoutUpstreamCall() {
+        snapshotHolder.publish(List.of(line("central", 6, "Severe Delays")), Instant.now());
+
+        StepVerifier.create(statusService.getLineStatus("Central"))
+                .assertNext(result -> {
+                    assertEquals("Severe Delays", result.value().getLine().getStatuses(0).getStatusSeverityDescription());
+                    assertFalse(result.stale());
+                })
+                .verifyComplete();
+
+        verify(tflApiClient, never()).getLineStatus(anyString());
+    }
+
+    @Test
+    void getLineStatus_FallsBackToUpstreamWhenSnapshotTooOld() {
+        snapshotHolder.publish(List.of(line("central", 6, "Severe Delays")), Instant.now().minusSeconds(600));
+        when(tflApiClient.getLineStatus("central")).thenReturn(Flux.just(line("central", 10, "Good Service")));
+
+        StepVerifier.create(statusService.getLineStatus("central"))
+                .assertNext(result -> assertEquals("Good Service",
+                        result.value().getLine().getStatuses(0).getStatusSeverityDescription()))
+                .verifyComplete();
+    }
+
+    @Test
+    void getLineStatus_FlagsSnapshotPastTtlAsStale() {
+        snapshotHolder.publish(List.of(line("central", 6, "Severe Delays")), Instant.now().minusSeconds(90));
+
+        StepVerifier.create(statusService.getLineStatus("central"))
+                .assertNext(result -> {
+                    assertTrue(result.stale());
+                    assertTrue(result.age(Instant.now()).getSeconds() >= 90);
+                })
+                .verifyComplete();
+
+        verify(tflApiClient, never()).getLineStatus(anyString());
+    }
+
+    @Test
+    void getLineStatus_ServesRestoredSnapshotAsStaleUntilFirstPoll() {
+        snapshotHolder.restore(7, Instant.now().minusSeconds(600), List.of(line("central", 6, "Severe Delays")));
+
+        StepVerifier.create(statusService.getLineStatus("central"))
+                .assertNext(result -> {
+                    assertTrue(result.stale());
+                    assertEquals("Severe Delays", result.value().getLine().getStatuses(0).getStatusSeverityDescription());
+                })
+                .verifyComplete();
+
+        verify(tflApiClient, never()).getLineStatus(anyString());
+    }
+
+    @Test
+    void getUnplannedDisruptions_ServedFromSnapshotExcludingPlannedWorks() {
+        snapshotHolder.publish(List.of(
+                line("central", 6, "Severe Delays"),
+                line("district", 11, "Planned Closure"),
+                line("victoria", 10, "Good Service")), Instant.now());
+
+        StepVerifier.create(statusService.getUnplannedDisruptions())
+                .assertNext(result -> {
+                    assertEquals(1, result.value().getAffectedLinesCount());
+                    assertEquals("central", result.value().getAffectedLines(0).getId());
+                })
+                .verifyComplete();
+
+        verify(tflApiClient, never()).getAllTubeLineStatuses();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ig.group.tfl.status.severity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeverityTableTest {
+
+    @Test
+    void defaults_ClassifyByCodeThenByPlannedDescription() {
+        SeverityTable table = SeverityTable.defaults();
+
+        assertEquals(SeverityClass.GOOD, table.classify(10, "Good Service"));
+        assertEquals(SeverityClass.PLANNED, table.classify(11, "Part Closed"));
+        assertEquals(SeverityClass.PLANNED, table.classify(4, "Planned Closure"));
+        assertEquals(SeverityClass.UNPLANNED, table.classify(6, "Severe Delays"));
+        assertEquals(SeverityClass.UNPLANNED, table.classify(-1, ""));
+        assertEquals(SeverityClass.UNPLANNED, table.classify(500, "Unknown"));
+    }
+
+    @Test
+    void classify_FollowsConfiguredMappings() {
+        SeverityTable table = new SeverityTable(Set.of(10, 18), Set.of(4), List.of());
+
+        assertEquals(SeverityClass.GOOD, table.classify(18, "No Issues"));
+        assertEquals(SeverityClass.PLANNED, table.classify(4, "Planned Closure"));
+        assertEquals(SeverityClass.UNPLANNED, table.classify(11, "Planned Part Closure"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.embedded.RedisServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisSnapshotLeadershipTest {
+
+    private static final int PORT = 6392;
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveRedisTemplate<String, byte[]> redisTemplate;
+
+    @BeforeAll
+    static void startRedis() {
+        redisServer = new RedisServer(PORT);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory("localhost", PORT);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build());
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    private static RedisSnapshotLeadership replica(String keyPrefix, Duration leaseDuration) {
+        return new RedisSnapshotLeadership(redisTemplate, keyPrefix, leaseDuration, Duration.ofSeconds(2));
+    }
+
+    private static TubeSnapshot snapshot(String description) {
+        TubeSnapshotHolder holder = new TubeSnapshotHolder(SeverityTable.defaults());
+        return holder.publish(List.of(LineInfo.newBuilder().setId("central").setName("Central")
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverityDescription(description))
+                .build()), Instant.now());
+    }
+
+    @Test
+    void renew_ElectsOneLeaderAndFailsOverOnceTheLeaseLapses() throws InterruptedException {
+        RedisSnapshotLeadership replicaA = replica("failover", Duration.ofMillis(300));
+        RedisSnapshotLeadership replicaB = replica("failover", Duration.ofMillis(300));
+        List<Long> gainedByB = new CopyOnWriteArrayList<>();
+        replicaB.leadershipGained().subscribe(gainedByB::add);
+
+        StepVerifier.create(replicaA.renew()).expectNext(1L).verifyComplete();
+        StepVerifier.create(replicaB.renew()).expectNext(0L).verifyComplete();
+        assertTrue(replicaA.isLeader());
+        assertFalse(replicaB.isLeader());
+
+        StepVerifier.create(replicaA.share(snapshot("Good Service"))).verifyComplete();
+        StepVerifier.create(replicaB.latestShared())
+                .assertNext(shared -> {
+                    assertEquals(1, shared.getFencingToken());
+                    assertEquals("Good Service", shared.getLines(0).getStatuses(0).getStatusSeverityDescription());
+                })
+                .verifyComplete();
+
+        // Replica A stops renewing, as if it had crashed
+        Thread.sleep(350);
+        assertFalse(replicaA.isLeader());
+        StepVerifier.create(replicaB.renew()).expectNext(2L).verifyComplete();
+        assertTrue(replicaB.isLeader());
+        StepVerifier.create(replicaB.renew()).expectNext(2L).verifyComplete();
+        assertEquals(List.of(2L), gainedByB);
+    }
+
+    @Test
+    void renew_FallsBackToPollingLocallyWhileRedisIsUnreachable() throws InterruptedException {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory("localhost", PORT + 1);
+        unreachable.afterPropertiesSet();
+        try {
+            RedisSnapshotLeadership replica = new RedisSnapshotLeadership(new ReactiveRedisTemplate<>(unreachable,
+                    RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.string())
+                            .value(RedisSerializer.byteArray())
+                            .build()), "unreachable", Duration.ofMillis(200), Duration.ofMillis(100));
+            List<Long> gained = new CopyOnWriteArrayList<>();
+            replica.leadershipGained().subscribe(gained::add);
+
+            StepVerifier.create(replica.renew()).expectError().verify();
+            assertFalse(replica.isLeader());
+
+            Thread.sleep(250);
+            StepVerifier.create(replica.renew()).expectError().verify();
+            assertTrue(replica.isLeader());
+            assertEquals(List.of(0L), gained);
+            // Without a lease there is no fencing token to share under
+            StepVerifier.create(replica.share(snapshot("Good Service"))).verifyComplete();
+        } finally {
+            unreachable.destroy();
+        }
+    }
+
+    @Test
+    void share_RejectsSnapshotFromLeaderSupersededWhileStalled() {
+        RedisSnapshotLeadership replicaA = replica("fencing", Duration.ofSeconds(30));
+        RedisSnapshotLeadership replicaB = replica("fencing", Duration.ofSeconds(30));
+        StepVerifier.create(replicaA.renew()).expectNext(1L).verifyComplete();
+
+        // Replica A's lease lapses in Redis while it is paused, and B takes over
+        StepVerifier.create(redisTemplate.delete("fencing:snapshot:leader")).expectNext(1L).verifyComplete();
+        StepVerifier.create(replicaB.renew()).expectNext(2L).verifyComplete();
+        StepVerifier.create(replicaB.share(snapshot("Minor Delays"))).verifyComplete();
+
+        assertTrue(replicaA.isLeader());
+        StepVerifier.create(replicaA.share(snapshot("Good Service"))).verifyComplete();
+        assertFalse(replicaA.isLeader());
+        StepVerifier.create(replicaA.latestShared())
+                .assertNext(shared -> assertEquals("Minor Delays",
+                        shared.getLines(0).getStatuses(0).getStatusSeverityDescription()))
+                .verifyComplete();
+    }
+}
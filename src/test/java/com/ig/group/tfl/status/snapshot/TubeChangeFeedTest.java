@@ -0,0 +1,67 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TubeChangeFeedTest {
+
+    private TubeSnapshotHolder holder;
+    private TubeChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        holder = new TubeSnapshotHolder(SeverityTable.defaults());
+        changeFeed = new TubeChangeFeed(holder);
+    }
+
+    private static LineInfo line(String id, int severity) {
+        return LineInfo.newBuilder().setId(id).setName(id)
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(severity)).build();
+    }
+
+    @Test
+    void lineChanges_EmitsCurrentStateThenOnlyChangedLines() {
+        holder.publish(List.of(line("central", 10), line("northern", 10)), Instant.now());
+
+        StepVerifier.create(changeFeed.lineChanges(List.of("Central", "northern")))
+                .assertNext(response -> assertEquals("central", response.getLine().getId()))
+                .assertNext(response -> assertEquals("northern", response.getLine().getId()))
+                .then(() -> holder.publish(List.of(line("central", 10), line("northern", 6)), Instant.now()))
+                .assertNext(response -> assertEquals(6, response.getLine().getStatuses(0).getStatusSeverity()))
+                .then(() -> holder.publish(List.of(line("central", 10), line("northern", 6)), Instant.now()))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void lineChanges_RejectsIdsMissingFromTheSnapshot() {
+        holder.publish(List.of(line("central", 10)), Instant.now());
+
+        StepVerifier.create(changeFeed.lineChanges(List.of("central", "centrl")))
+                .expectErrorMessage("Unknown tube line ids: [centrl]")
+                .verify();
+    }
+
+    @Test
+    void unplannedChanges_EmitsOnlyWhenAffectedLinesChange() {
+        holder.publish(List.of(line("central", 10)), Instant.now());
+
+        StepVerifier.create(changeFeed.unplannedChanges())
+                .assertNext(response -> assertEquals(0, response.getAffectedLinesCount()))
+                .then(() -> holder.publish(List.of(line("central", 10), line("victoria", 10)), Instant.now()))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenCancel()
+                .verify();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TubeEventLogTest {
+
+    private TubeSnapshotHolder holder;
+    private TubeEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        holder = new TubeSnapshotHolder(SeverityTable.defaults());
+        eventLog = new TubeEventLog(holder, 4);
+        eventLog.start();
+    }
+
+    private static LineInfo line(String id, int severity) {
+        return LineInfo.newBuilder().setId(id).setName(id)
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(severity)).build();
+    }
+
+    @Test
+    void events_NewClientReceivesLatestStateForEveryKey() {
+        holder.publish(List.of(line("central", 10)), Instant.now());
+        holder.publish(List.of(line("central", 11)), Instant.now());
+
+        StepVerifier.create(eventLog.events(null).take(2))
+                .assertNext(event -> assertEquals(TubeEventLog.UNPLANNED_DISRUPTIONS, event.type()))
+                .assertNext(event -> {
+                    assertEquals(TubeEventLog.LINE_STATUS, event.type());
+                    assertEquals(3, event.id());
+                    assertTrue(event.data().contains("\"statusSeverity\":11"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void events_ResumesAfterLastEventIdThenFollowsLiveEvents() {
+        holder.publish(List.of(line("central", 10)), Instant.now());
+        holder.publish(List.of(line("central", 11)), Instant.now());
+
+        StepVerifier.create(eventLog.events(2L).take(2))
+                .assertNext(event -> assertEquals(3, event.id()))
+                .then(() -> holder.publish(List.of(line("central", 10)), Instant.now()))
+                .assertNext(event -> assertEquals(4, event.id()))
+                .verifyComplete();
+    }
+
+    @Test
+    void events_FallsBackToLatestStateWhenLastEventIdIsNoLongerRetained() {
+        for (int severity = 1; severity <= 6; severity++) {
+            holder.publish(List.of(line("central", severity)), Instant.now());
+        }
+
+        StepVerifier.create(eventLog.events(1L).take(1))
+                .assertNext(event -> assertTrue(event.data().contains("\"statusSeverity\":6")))
+                .verifyComplete();
+    }
+}
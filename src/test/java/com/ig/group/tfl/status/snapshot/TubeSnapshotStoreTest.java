@@ -0,0 +1,87 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TubeSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static LineInfo line(String id, int severity, String description) {
+        return LineInfo.newBuilder().setId(id).setName(id)
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(severity)
+                        .setStatusSeverityDescription(description))
+                .build();
+    }
+
+    private TubeSnapshotStore store(TubeSnapshotHolder holder, Path path) {
+        return new TubeSnapshotStore(holder, true, path, Duration.ofHours(1));
+    }
+
+    @Test
+    void restore_InstallsLastSavedSnapshotAsRestoredUntilNextPublish() throws Exception {
+        Path path = directory.resolve("tube-snapshot.bin");
+        TubeSnapshotHolder before = new TubeSnapshotHolder(SeverityTable.defaults());
+        Instant fetchedAt = Instant.now().minusSeconds(600).truncatedTo(ChronoUnit.MILLIS);
+        before.publish(List.of(line("central", 10, "Good Service")), fetchedAt);
+        TubeSnapshot saved = before.publish(List.of(line("central", 6, "Severe Delays"),
+                line("victoria", 10, "Good Service")), fetchedAt);
+        store(before, path).save(saved);
+
+        TubeSnapshotHolder after = new TubeSnapshotHolder(SeverityTable.defaults());
+        store(after, path).restore();
+
+        TubeSnapshot restored = after.current();
+        assertTrue(restored.restored());
+        assertEquals(2, restored.version());
+        assertEquals(fetchedAt, restored.fetchedAt());
+        assertEquals(saved.lineStatuses(), restored.lineStatuses());
+        assertEquals(saved.unplannedDisruptions(), restored.unplannedDisruptions());
+        assertSame(restored, after.updates().blockFirst());
+
+        TubeSnapshot refreshed = after.publish(List.of(line("central", 6, "Severe Delays"),
+                line("victoria", 10, "Good Service")), Instant.now());
+        assertFalse(refreshed.restored());
+        assertEquals(2, refreshed.version());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    @Test
+    void restore_IgnoresTruncatedOrExpiredFiles() throws Exception {
+        Path path = directory.resolve("tube-snapshot.bin");
+        TubeSnapshotHolder holder = new TubeSnapshotHolder(SeverityTable.defaults());
+        store(holder, path).save(holder.publish(List.of(line("central", 10, "Good Service"),
+                line("victoria", 10, "Good Service")), Instant.now()));
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        TubeSnapshotHolder truncated = new TubeSnapshotHolder(SeverityTable.defaults());
+        store(truncated, path).restore();
+        assertTrue(truncated.current().isEmpty());
+
+        store(holder, path).save(holder.publish(List.of(line("central", 10, "Good Service")),
+                Instant.now().minus(Duration.ofHours(2))));
+        TubeSnapshotHolder expired = new TubeSnapshotHolder(SeverityTable.defaults());
+        store(expired, path).restore();
+        assertTrue(expired.current().isEmpty());
+    }
+}
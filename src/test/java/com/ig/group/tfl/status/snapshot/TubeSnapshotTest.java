@@ -0,0 +1,49 @@
+package com.ig.group.tfl.status.snapshot;
+
+import com.ig.group.tfl.status.grpc.LineInfo;
+import com.ig.group.tfl.status.grpc.StatusInfo;
+import com.ig.group.tfl.status.severity.SeverityClassifier;
+import com.ig.group.tfl.status.severity.SeverityTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TubeSnapshotTest {
+
+    private static LineInfo line(String id, int severity, String description) {
+        return LineInfo.newBuilder().setId(id).setName(id)
+                .addStatuses(StatusInfo.newBuilder().setStatusSeverity(severity)
+                        .setStatusSeverityDescription(description))
+                .build();
+    }
+
+    @Test
+    void next_ClassifiesOnlyChangedLinesAndKeepsUnaffectedIndex() {
+        SeverityClassifier classifier = spy(SeverityTable.defaults());
+        TubeSnapshot first = TubeSnapshot.EMPTY.next(List.of(line("central", 6, "Severe Delays"),
+                line("victoria", 10, "Good Service"), line("jubilee", 10, "Good Service")), Instant.now(), classifier);
+
+        TubeSnapshot second = first.next(List.of(line("central", 6, "Severe Delays"),
+                line("victoria", 10, "Good Service"), line("jubilee", 11, "Part Closed")), Instant.now(), classifier);
+
+        verify(classifier, times(4)).hasUnplannedDisruption(any());
+        assertEquals(Set.of("central"), second.unplannedLineIds());
+        assertSame(first.unplannedDisruptions(), second.unplannedDisruptions());
+
+        TubeSnapshot third = second.next(List.of(line("central", 10, "Good Service"),
+                line("victoria", 9, "Minor Delays"), line("jubilee", 11, "Part Closed")), Instant.now(), classifier);
+
+        assertEquals(Set.of("victoria"), third.unplannedLineIds());
+        assertEquals(List.of("victoria"), third.unplannedDisruptions().getAffectedLinesList().stream()
+                .map(LineInfo::getId).toList());
+    }
+}
@@ -0,0 +1,93 @@
+#!/bin/bash
+#
+# Measures how long a new instance takes to serve its first successful request,
+# which is what bounds scale-out latency. Each run launches the application,
+# polls PROBE_PATH until it answers 200, and records the time since launch
+# alongside the startup time Spring Boot logs. Two builds are compared:
+#
+#   jar      the extracted jar, as built by default
+#   aot-cds  the same jar with Spring AOT and the AppCDS archive (-Pstartup)
+#
+#   ./mvnw -Pstartup -DskipTests package
+#   ./startup-time.sh [runs] [extra application arguments]
+#
+# e.g. TFL_BASE_URL=http://localhost:8081 ./startup-time.sh 10
+# Runs start cold, without the persisted snapshot; set WARM_START=1 to use it.
+# Start Redis first (see Running Locally) so that runs do not include forking
+# the embedded one.
+
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")" && pwd)"
+APP_DIR="$ROOT/target/startup/app"
+OUT="$ROOT/target/startup/runs"
+RUNS="${1:-5}"
+shift || true
+PORT="${PORT:-18080}"
+GRPC_PORT="${GRPC_PORT:-19090}"
+PROBE_PATH="${PROBE_PATH:-/api/line/central/status}"
+TIMEOUT_SECONDS="${TIMEOUT_SECONDS:-120}"
+
+JAR="$(ls "$APP_DIR"/*.jar 2>/dev/null | head -1 || true)"
+if [ -z "$JAR" ] || [ ! -f "$APP_DIR/application.jsa" ]; then
+    echo "No startup build in $APP_DIR; run ./mvnw -Pstartup -DskipTests package first" >&2
+    exit 1
+fi
+
+APP_ARGS=(--server.port="$PORT" --grpc.server.port="$GRPC_PORT")
+[ -n "${TFL_BASE_URL:-}" ] && APP_ARGS+=(--tfl.api.base-url="$TFL_BASE_URL")
+[ "${WARM_START:-0}" = 1 ] || APP_ARGS+=(--tfl.snapshot.persist.enabled=false)
+APP_ARGS+=("$@")
+
+mkdir -p "$OUT"
+
+# Prints "<ms to first 200> <ms Spring Boot reported>" for one launch
+run_once() {
+    local log="$1"
+    shift
+    local start now pid status
+    start=$(date +%s%N)
+    java "$@" -jar "$JAR" "${APP_ARGS[@]}" >"$log" 2>&1 &
+    pid=$!
+    while true; do
+        status=$(curl -s -o /dev/null -w '%{http_code}' --max-time 1 -H 'Accept-Version: v1' \
+            "http://localhost:$PORT$PROBE_PATH" || true)
+        now=$(date +%s%N)
+        [ "$status" = 200 ] && break
+        if ! kill -0 "$pid" 2>/dev/null || [ $(( (now - start) / 1000000000 )) -ge "$TIMEOUT_SECONDS" ]; then
+            kill "$pid" 2>/dev/null || true
+            echo "No successful request within ${TIMEOUT_SECONDS}s (last status $status), see $log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    # Not logged yet if the first request was served before startup finished
+    local started
+    started=$(grep -o 'Started [A-Za-z]* in [0-9.]* seconds' "$log" | awk '{print $4 * 1000}' | head -1 || true)
+    echo "$(( (now - start) / 1000000 )) ${started:-nan}"
+}
+
+measure() {
+    local label="$1" results="$OUT/$1.txt"
+    shift
+    : >"$results"
+    for run in $(seq 1 "$RUNS"); do
+        run_once "$OUT/$label-$run.log" "$@" >>"$results"
+    done
+    python3 - "$label" "$results" <<'PY'
+import math, statistics, sys
+label, path = sys.argv[1], sys.argv[2]
+runs = [tuple(map(float, line.split())) for line in open(path)]
+first = [r[0] for r in runs]
+started = [r[1] for r in runs if not math.isnan(r[1])]
+reported = f"{statistics.median(started):>6.0f}" if started else "     -"
+print(f"{label:<8} first 200 ms  min {min(first):>6.0f}  median {statistics.median(first):>6.0f}"
+      f"  max {max(first):>6.0f}   | Spring Boot started ms  median {reported}")
+PY
+}
+
+echo "$RUNS runs each, probing $PROBE_PATH"
+measure jar
+measure aot-cds -XX:SharedArchiveFile="$APP_DIR/application.jsa" -Dspring.aot.enabled=true